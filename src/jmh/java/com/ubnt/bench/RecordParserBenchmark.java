@@ -0,0 +1,115 @@
+package com.ubnt.bench; //@date 16.10.2026
+
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.UbntIOUtilities;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures every {@link IUbntService.RecordParser} of
+ * {@link UbntIOUtilities} on a typical payload, reading it from a byte array
+ * and from a direct buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordParserBenchmark {
+
+    /**
+     * The name of the parser under test.
+     */
+    @Param({"mac", "string", "ipAddress", "hexString", "integer", "boolean", "ipInfo"})
+    public String parserName;
+
+    /**
+     * The parser under test.
+     */
+    private IUbntService.RecordParser parser;
+
+    /**
+     * The payload stored at offset {@code 0}.
+     */
+    private byte[] data;
+
+    /**
+     * A direct buffer storing the {@link #data}.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Selects the parser and its payload.
+     */
+    @Setup
+    public void setup() {
+        UbntIOUtilities.setupParsersV2();
+        switch (parserName) {
+            case "mac": {
+                parser = IUbntService.Record.getParser(IUbntService.SOURCE_MAC);
+                data = new byte[]{(byte) 0x80, 0x2A, (byte) 0xA8, 0x53, 0x58, 0x7A};
+                break;
+            }
+            case "string": {
+                parser = new UbntIOUtilities.StringRecordParser();
+                data = "BZ.qca956x_6.0.21+13673.220607.2004".getBytes(StandardCharsets.US_ASCII);
+                break;
+            }
+            case "ipAddress": {
+                parser = new UbntIOUtilities.IpAddressRecordParser();
+                data = new byte[]{(byte) 0xAC, 0x27, 0x00, (byte) 0x94};
+                break;
+            }
+            case "hexString": {
+                parser = new UbntIOUtilities.HexStringRecordParser();
+                data = new byte[]{(byte) 0xE4, (byte) 0xA6, 0x77, 0x5B, 0x72, (byte) 0xA3, 0x46, (byte) 0xC1,
+                        (byte) 0x8E, (byte) 0xE1, (byte) 0x9B, (byte) 0xE8, 0x05, (byte) 0x9B, 0x3E, (byte) 0xCF};
+                break;
+            }
+            case "integer": {
+                parser = new UbntIOUtilities.IntegerRecordParser();
+                data = new byte[]{0x00, 0x34, (byte) 0xC0, 0x2A};
+                break;
+            }
+            case "boolean": {
+                parser = new UbntIOUtilities.BooleanRecordParser();
+                data = new byte[]{0x01};
+                break;
+            }
+            case "ipInfo": {
+                parser = new UbntIOUtilities.IpInfoRecordParser();
+                data = new byte[]{(byte) 0x80, 0x2A, (byte) 0xA8, 0x53, 0x58, 0x7A,
+                        (byte) 0xAC, 0x27, 0x00, (byte) 0x94};
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown parser: " + parserName);
+        }
+        buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).flip();
+    }
+
+    /**
+     * Decodes the payload from a byte array.
+     *
+     * @return the decoded payload
+     */
+    @Benchmark
+    public Object array() {
+        return parser.parseData(data, 0, data.length);
+    }
+
+    /**
+     * Decodes the payload from a direct buffer.
+     *
+     * @return the decoded payload
+     */
+    @Benchmark
+    public Object buffer() {
+        return parser.parseData(buffer, 0, data.length);
+    }
+}
@@ -0,0 +1,116 @@
+package com.ubnt.bench; //@date 16.10.2026
+
+import com.ubnt.net.DefaultServiceParser;
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.ServiceRegistry;
+import com.ubnt.net.UbntIOUtilities;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the MAC-Address lookup of the deprecated
+ * {@link UbntIOUtilities#getCachedService(IUbntService, List)} with the
+ * {@link ServiceRegistry} for growing numbers of discovered devices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceCacheBenchmark {
+
+    /**
+     * The amount of cached services.
+     */
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    /**
+     * The services in discovery order.
+     */
+    private List<IUbntService> services;
+
+    /**
+     * The registry storing all {@link #services}.
+     */
+    private ServiceRegistry registry;
+
+    /**
+     * Freshly parsed copies of the cached services used as lookup keys.
+     */
+    private IUbntService[] probes;
+
+    /**
+     * The index of the next probe.
+     */
+    private int next;
+
+    /**
+     * Parses {@link #size} services with distinct MAC-Addresses.
+     */
+    @Setup
+    public void setup() {
+        UbntIOUtilities.setupParsersV2();
+        DefaultServiceParser parser = new DefaultServiceParser();
+
+        services = new ArrayList<>(size);
+        registry = new ServiceRegistry();
+        for (int i = 0; i < size; i++) {
+            byte[] frame = UbntFrames.v2Frame(0x802AA8000000L + i);
+            IUbntService service = parser.parse(frame, frame.length);
+            services.add(service);
+            registry.upsert(service);
+        }
+
+        probes = new IUbntService[64];
+        for (int i = 0; i < probes.length; i++) {
+            byte[] frame = UbntFrames.v2Frame(0x802AA8000000L + (long) i * size / probes.length);
+            probes[i] = parser.parse(frame, frame.length);
+        }
+    }
+
+    /**
+     * Returns the next lookup key.
+     *
+     * @return the probe service
+     */
+    private IUbntService nextProbe() {
+        return probes[next++ & (probes.length - 1)];
+    }
+
+    /**
+     * Looks up a service by scanning the list.
+     *
+     * @return the cached service
+     */
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public IUbntService list() {
+        return UbntIOUtilities.getCachedService(nextProbe(), services);
+    }
+
+    /**
+     * Looks up a service in the registry.
+     *
+     * @return the cached service
+     */
+    @Benchmark
+    public IUbntService registry() {
+        return registry.get(nextProbe());
+    }
+
+    /**
+     * Replaces a service in the registry, which is what happens for every
+     * response of a known device.
+     *
+     * @return the replaced service
+     */
+    @Benchmark
+    public IUbntService upsert() {
+        return registry.upsert(nextProbe());
+    }
+}
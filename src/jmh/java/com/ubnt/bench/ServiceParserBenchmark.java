@@ -0,0 +1,116 @@
+package com.ubnt.bench; //@date 16.10.2026
+
+import com.ubnt.net.DefaultServiceParser;
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.UbntIOUtilities;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code BaseServiceParser.parse} on version 1 and version 2
+ * response frames for every supported input type. The {@code decode}
+ * benchmark additionally requests every payload, which is what the UI does
+ * when a service is displayed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceParserBenchmark {
+
+    /**
+     * The packet version of the parsed frame.
+     */
+    @Param({"1", "2"})
+    public int version;
+
+    /**
+     * Whether record payloads should be decoded on first access.
+     */
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    /**
+     * The parser under test.
+     */
+    private DefaultServiceParser parser;
+
+    /**
+     * The raw frame.
+     */
+    private byte[] frame;
+
+    /**
+     * A heap buffer storing the {@link #frame}.
+     */
+    private ByteBuffer heapBuffer;
+
+    /**
+     * A direct buffer storing the {@link #frame}, like the slabs of the
+     * selector based receive engine.
+     */
+    private ByteBuffer directBuffer;
+
+    /**
+     * Registers all record parsers and prepares the input buffers.
+     */
+    @Setup
+    public void setup() {
+        UbntIOUtilities.setupParsersV2();
+        parser = new DefaultServiceParser();
+        parser.setLazy(lazy);
+
+        frame = version == 1 ? UbntFrames.SAMPLE_V1 : UbntFrames.SAMPLE_V2;
+        heapBuffer = ByteBuffer.wrap(frame.clone());
+        directBuffer = ByteBuffer.allocateDirect(frame.length);
+        directBuffer.put(frame).flip();
+    }
+
+    /**
+     * Parses the frame from a byte array.
+     *
+     * @return the parsed service
+     */
+    @Benchmark
+    public IUbntService array() {
+        return parser.parse(frame, frame.length);
+    }
+
+    /**
+     * Parses the frame from a heap buffer.
+     *
+     * @return the parsed service
+     */
+    @Benchmark
+    public IUbntService heap() {
+        return parser.parse(heapBuffer.duplicate());
+    }
+
+    /**
+     * Parses the frame from a direct buffer.
+     *
+     * @return the parsed service
+     */
+    @Benchmark
+    public IUbntService direct() {
+        return parser.parse(directBuffer.duplicate());
+    }
+
+    /**
+     * Parses the frame from a byte array and requests every payload.
+     *
+     * @param blackhole the sink for all payloads
+     */
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        IUbntService service = parser.parse(frame, frame.length);
+        for (IUbntService.Record record : service) {
+            blackhole.consume(record.getPayload());
+        }
+    }
+}
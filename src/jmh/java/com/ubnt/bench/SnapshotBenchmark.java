@@ -0,0 +1,102 @@
+package com.ubnt.bench; //@date 16.10.2026
+
+import com.ubnt.net.DefaultServiceParser;
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.UbntIOUtilities;
+import com.ubnt.net.UbntSnapshotReader;
+import com.ubnt.net.UbntSnapshotWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the export of services with {@link UbntSnapshotWriter} and their
+ * import with {@link UbntSnapshotReader}, to be compared with the
+ * {@link XMLRoundTripBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    /**
+     * The amount of exported services.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    /**
+     * The services to export.
+     */
+    private IUbntService[] services;
+
+    /**
+     * The snapshot of all {@link #services}.
+     */
+    private File file;
+
+    /**
+     * Parses the services and writes them once for the import benchmark.
+     *
+     * @throws IOException if the snapshot could not be written
+     */
+    @Setup
+    public void setup() throws IOException {
+        UbntIOUtilities.setupParsersV2();
+        DefaultServiceParser parser = new DefaultServiceParser();
+
+        services = new IUbntService[size];
+        for (int i = 0; i < size; i++) {
+            byte[] frame = UbntFrames.v2Frame(0x802AA8000000L + i);
+            services[i] = parser.parse(frame, frame.length);
+        }
+
+        file = File.createTempFile("bench", UbntSnapshotWriter.EXTENSION);
+        file.deleteOnExit();
+        try (UbntSnapshotWriter writer = new UbntSnapshotWriter(file)) {
+            for (IUbntService service : services) {
+                writer.append(service);
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot of all services.
+     *
+     * @return the snapshot bytes
+     * @throws IOException if the snapshot could not be written
+     */
+    @Benchmark
+    public byte[] export() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(size * 256);
+        try (UbntSnapshotWriter writer = new UbntSnapshotWriter(stream)) {
+            for (IUbntService service : services) {
+                writer.append(service);
+            }
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * Reads all services of the snapshot.
+     *
+     * @return the amount of read services
+     * @throws IOException if the snapshot could not be read
+     */
+    @Benchmark
+    public int load() throws IOException {
+        try (UbntSnapshotReader reader = new UbntSnapshotReader(file)) {
+            int count = 0;
+            while (reader.next() != null) {
+                count++;
+            }
+            return count;
+        }
+    }
+}
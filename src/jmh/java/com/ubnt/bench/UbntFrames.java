@@ -0,0 +1,112 @@
+package com.ubnt.bench; //@date 16.10.2026
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.ubnt.net.IUbntService.*;
+
+/**
+ * Sample discovery response frames used by the benchmarks.
+ */
+final class UbntFrames {
+
+    /**
+     * The version 2 sample frame of {@code ubnt.py} (an {@code U7PG2} access
+     * point).
+     */
+    static final byte[] SAMPLE_V2 = hex(
+            "020600b102000a802aa853587aac270094010006802a" +
+            "a853587a0a00040034c02a0b00065a69303030310c00" +
+            "055537504732030023425a2e716361393536785f362e" +
+            "302e32312b31333637332e3232303630372e32303034" +
+            "16000c362e302e32312e313336373315000555375047" +
+            "321700010018000100190001011a000101130006802a" +
+            "a853587a120004000a81321b0005332e342e31270008" +
+            "1ee19be8059b3ecf2a0010e4a6775b72a346c18ee19b" +
+            "e8059b3ecf");
+
+    /**
+     * A version 1 frame of an {@code airMAX} station.
+     */
+    static final byte[] SAMPLE_V1 = v1Frame(0x0418D6A1B2C3L, 0x0A000102);
+
+    private UbntFrames() {}
+
+    /**
+     * Creates a version 1 response frame for the given addresses.
+     *
+     * @param mac the 48-bit MAC-Address
+     * @param ip the IPv4 address
+     * @return the raw frame
+     */
+    static byte[] v1Frame(long mac, int ip) {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(160);
+        record(records, HW_ADDRESS, mac(mac));
+        record(records, IPINFO, concat(mac(mac), ip(ip)));
+        record(records, FW_VERSION, "XW.ar934x.v6.3.6.33330.210818.1859".getBytes(StandardCharsets.US_ASCII));
+        record(records, UPTIME, new byte[]{0, 0x34, (byte) 0xC0, 0x2A});
+        record(records, HOSTNAME, "station-01".getBytes(StandardCharsets.US_ASCII));
+        record(records, PLATFORM, "LBE-5AC-Gen2".getBytes(StandardCharsets.US_ASCII));
+        record(records, ESSID, "backhaul".getBytes(StandardCharsets.US_ASCII));
+        record(records, WIFI_MODE, new byte[]{2});
+        record(records, WEB_UI, new byte[]{0, 1, 0, 80});
+        record(records, MODEL, "LBE-5AC-Gen2".getBytes(StandardCharsets.US_ASCII));
+        return frame(1, records.toByteArray());
+    }
+
+    /**
+     * Creates a copy of {@link #SAMPLE_V2} with the given MAC-Address in its
+     * {@code IPINFO} record.
+     *
+     * @param mac the 48-bit MAC-Address
+     * @return the raw frame
+     */
+    static byte[] v2Frame(long mac) {
+        byte[] frame = SAMPLE_V2.clone();
+        System.arraycopy(mac(mac), 0, frame, 7, 6);
+        return frame;
+    }
+
+    private static byte[] frame(int version, byte[] records) {
+        byte[] frame = new byte[records.length + 4];
+        frame[0] = (byte) version;
+        frame[2] = (byte) (records.length >> 8);
+        frame[3] = (byte) records.length;
+        System.arraycopy(records, 0, frame, 4, records.length);
+        return frame;
+    }
+
+    private static void record(ByteArrayOutputStream stream, int type, byte[] value) {
+        stream.write(type);
+        stream.write(value.length >> 8);
+        stream.write(value.length);
+        stream.writeBytes(value);
+    }
+
+    private static byte[] mac(long mac) {
+        byte[] bytes = new byte[6];
+        for (int i = 0; i < 6; i++) {
+            bytes[i] = (byte) (mac >>> (40 - i * 8));
+        }
+        return bytes;
+    }
+
+    private static byte[] ip(int ip) {
+        return new byte[]{(byte) (ip >>> 24), (byte) (ip >>> 16), (byte) (ip >>> 8), (byte) ip};
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static byte[] hex(String value) {
+        byte[] bytes = new byte[value.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ubnt.bench; //@date 16.10.2026
+
+import com.ubnt.net.DefaultServiceParser;
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.UbntIOUtilities;
+import com.ubnt.xml.UbntServiceXMLBuilder;
+import com.ubnt.xml.UbntServiceXMLHandler;
+import com.ubnt.xml.UbntServiceXMLStreamWriter;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the export of services with {@link UbntServiceXMLBuilder}, using
+ * the same transformer settings as {@code UbntServiceXMLWriter}, and with
+ * {@link UbntServiceXMLStreamWriter}, as well as their import with
+ * {@link UbntServiceXMLHandler}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XMLRoundTripBenchmark {
+
+    /**
+     * The amount of exported services.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    /**
+     * The services to export.
+     */
+    private IUbntService[] services;
+
+    /**
+     * The exported document of all {@link #services}.
+     */
+    private byte[] document;
+
+    /**
+     * The factory of all SAX parsers.
+     */
+    private SAXParserFactory saxParserFactory;
+
+    /**
+     * Parses the services and exports them once for the import benchmark.
+     *
+     * @throws Exception if the document could not be created
+     */
+    @Setup
+    public void setup() throws Exception {
+        UbntIOUtilities.setupParsersV2();
+        DefaultServiceParser parser = new DefaultServiceParser();
+
+        services = new IUbntService[size];
+        for (int i = 0; i < size; i++) {
+            byte[] frame = UbntFrames.v2Frame(0x802AA8000000L + i);
+            services[i] = parser.parse(frame, frame.length);
+        }
+        saxParserFactory = SAXParserFactory.newInstance();
+        document = export();
+    }
+
+    /**
+     * Builds and serializes the document of all services.
+     *
+     * @return the document bytes
+     * @throws Exception if the document could not be created
+     */
+    @Benchmark
+    public byte[] export() throws Exception {
+        UbntServiceXMLBuilder builder = new UbntServiceXMLBuilder();
+        for (IUbntService service : services) {
+            builder.append(service);
+        }
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, "iubntservice.dtd");
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(size * 1024);
+        transformer.transform(new DOMSource(builder.getDocument()), new StreamResult(stream));
+        return stream.toByteArray();
+    }
+
+    /**
+     * Streams the document of all services.
+     *
+     * @return the document bytes
+     * @throws Exception if the document could not be written
+     */
+    @Benchmark
+    public byte[] streamExport() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(size * 1024);
+        try (UbntServiceXMLStreamWriter writer = new UbntServiceXMLStreamWriter(stream)) {
+            for (IUbntService service : services) {
+                writer.append(service);
+            }
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * Imports all services of the exported document.
+     *
+     * @return the used handler
+     * @throws Exception if the document could not be parsed
+     */
+    @Benchmark
+    public UbntServiceXMLHandler load() throws Exception {
+        UbntServiceXMLHandler handler = new UbntServiceXMLHandler(IUbntService.Factory.getDefaultFactory());
+        saxParserFactory.newSAXParser().parse(new ByteArrayInputStream(document), handler);
+        return handler;
+    }
+}
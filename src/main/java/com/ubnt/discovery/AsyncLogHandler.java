@@ -0,0 +1,292 @@
+package com.ubnt.discovery; //@date 16.10.2026
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.*;
+
+/**
+ * A {@link Handler} that hands every record to a bounded ring buffer and
+ * publishes it to a target handler on its own daemon thread, so threads that
+ * log never wait for the console or a file. If the buffer is full, records
+ * are dropped and the amount of dropped records is logged as soon as there
+ * is room again.
+ * <p>
+ * The handler can be configured in the {@code logging.properties} with the
+ * following keys:
+ * <pre>
+ * handlers=com.ubnt.discovery.AsyncLogHandler
+ * com.ubnt.discovery.AsyncLogHandler.target=java.util.logging.ConsoleHandler
+ * com.ubnt.discovery.AsyncLogHandler.capacity=4096
+ * com.ubnt.discovery.AsyncLogHandler.level=ALL
+ * </pre>
+ * The target handler reads its own keys, e.g. its formatter.
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The default amount of buffered records.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The milliseconds the publishing thread waits for a record before
+     * checking whether this handler has been closed.
+     */
+    private static final long POLL_MILLIS = 250L;
+
+    /**
+     * The milliseconds {@link #flush()} and {@link #close()} wait for the
+     * buffered records to be published.
+     */
+    private static final long DRAIN_MILLIS = 2000L;
+
+    /**
+     * The handler all records are published to.
+     */
+    private final Handler target;
+
+    /**
+     * The buffered records.
+     */
+    private final BlockingQueue<LogRecord> queue;
+
+    /**
+     * The amount of dropped records that have not been reported yet.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The thread publishing all records.
+     */
+    private final Thread worker;
+
+    /**
+     * Whether this handler has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new {@link AsyncLogHandler} configured by the
+     * {@link LogManager}.
+     */
+    public AsyncLogHandler() {
+        this(Target.create(), getIntProperty("capacity", DEFAULT_CAPACITY));
+
+        String level = LogManager.getLogManager().getProperty(getClass().getName() + ".level");
+        if (level != null) {
+            try {
+                setLevel(Level.parse(level.trim()));
+            } catch (IllegalArgumentException e) {
+                reportError("Invalid level: " + level, e, ErrorManager.GENERIC_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@link AsyncLogHandler} with the configured target and
+     * reports an invalid target to the {@link ErrorManager}.
+     *
+     * @param target   the configured target
+     * @param capacity the amount of buffered records
+     */
+    private AsyncLogHandler(Target target, int capacity) {
+        this(target.handler, capacity);
+        if (target.error != null) {
+            reportError("Invalid target: " + target.name, target.error, ErrorManager.OPEN_FAILURE);
+        }
+    }
+
+    /**
+     * Creates a new {@link AsyncLogHandler}.
+     *
+     * @param target   the handler to publish all records to
+     * @param capacity the amount of buffered records
+     */
+    public AsyncLogHandler(Handler target, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.target = target;
+        this.queue  = new ArrayBlockingQueue<>(capacity);
+
+        worker = new Thread(this::drain, "ubnt-log");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Returns the integer value of the given {@link LogManager} property of
+     * this class.
+     *
+     * @param key          the key without the class name
+     * @param defaultValue the value if the property is missing or invalid
+     * @return the property value
+     */
+    private static int getIntProperty(String key, int defaultValue) {
+        String value = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + "." + key);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Buffers the given record. The caller of the logger is determined before
+     * the record is buffered, because it can't be determined on the
+     * publishing thread.
+     *
+     * @param record the record to publish
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        record.getSourceClassName();
+        if (!queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Publishes all buffered records until this handler has been closed.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                LogRecord record = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+
+                long count = dropped.getAndSet(0);
+                if (count > 0) {
+                    LogRecord warning = new LogRecord(Level.WARNING, "[LOG]::Dropped(" + count + ")");
+                    warning.setLoggerName(AsyncLogHandler.class.getSimpleName());
+                    warning.setSourceClassName(AsyncLogHandler.class.getName());
+                    target.publish(warning);
+                }
+                target.publish(record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until all buffered records have been published and flushes the
+     * target handler.
+     */
+    @Override
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_MILLIS);
+        while (!queue.isEmpty() && worker.isAlive() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        target.flush();
+    }
+
+    /**
+     * Publishes all buffered records and closes the target handler.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join(DRAIN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+
+    /**
+     * Sets the level of this handler and of the target handler.
+     *
+     * @param newLevel the new level
+     */
+    @Override
+    public synchronized void setLevel(Level newLevel) {
+        super.setLevel(newLevel);
+        target.setLevel(newLevel);
+    }
+
+    /**
+     * Returns the amount of records that have been dropped and not yet
+     * reported.
+     *
+     * @return the dropped record count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * The target handler configured by the {@link LogManager}. The error of
+     * an invalid target is kept, so it can be reported once the handler
+     * exists.
+     */
+    private static final class Target {
+
+        /**
+         * The configured class name or {@code null}.
+         */
+        private final String name;
+
+        /**
+         * The target handler, a {@link ConsoleHandler} if none or an invalid
+         * one is configured.
+         */
+        private final Handler handler;
+
+        /**
+         * The error raised while creating the configured target or
+         * {@code null}.
+         */
+        private final Exception error;
+
+        /**
+         * Creates a new target.
+         *
+         * @param name    the configured class name or {@code null}
+         * @param handler the target handler
+         * @param error   the error or {@code null}
+         */
+        private Target(String name, Handler handler, Exception error) {
+            this.name    = name;
+            this.handler = handler;
+            this.error   = error;
+        }
+
+        /**
+         * Creates the target handler configured by the {@link LogManager},
+         * a {@link ConsoleHandler} by default.
+         *
+         * @return the target
+         */
+        static Target create() {
+            String name = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + ".target");
+            if (name != null && !name.isBlank()) {
+                try {
+                    Handler handler = (Handler) ClassLoader.getSystemClassLoader().loadClass(name.trim())
+                                                           .getDeclaredConstructor().newInstance();
+                    return new Target(name, handler, null);
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    return new Target(name, new ConsoleHandler(), e);
+                }
+            }
+            return new Target(name, new ConsoleHandler(), null);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.ubnt.discovery; //@date 16.10.2026
+
+import com.ubnt.net.IDiscoveryListener;
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.ServiceRegistry;
+
+import javax.swing.event.EventListenerList;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static com.ubnt.net.IUbntService.SEQ;
+import static com.ubnt.net.IUbntService.UPTIME;
+
+/**
+ * {@code DeviceMonitor} objects track all devices that answer the queries
+ * of a monitoring {@link QueryScheduler} by their MAC-Address. Registered
+ * {@link MonitorListener}s are notified when a device appears, when the
+ * response of a device changes and when a device has not been seen for the
+ * configured expiry time.
+ * <p>
+ * Devices answer every packet version they support, so the latest response
+ * is stored per version and only compared with the previous response of
+ * the same version. Records that change with every response, like the
+ * uptime or the sequence number, are ignored.
+ * <p>
+ * The monitor owns all services it receives: replaced and expired services
+ * are released after the listeners have been notified. Listeners that keep
+ * a service beyond the notification have to {@link IUbntService#detach()}
+ * it first.
+ * <p>
+ * The amount of devices and events can be read with JMX through
+ * {@link DeviceMonitorMXBean}.
+ */
+public class DeviceMonitor implements IDiscoveryListener, DeviceMonitorMXBean {
+
+    /**
+     * The logger of this class.
+     */
+    private static final Logger logger = Logger.getLogger(DeviceMonitor.class.getSimpleName());
+
+    /**
+     * The milliseconds after which a device that has not answered is
+     * treated as disappeared.
+     */
+    private final long expiryMillis;
+
+    /**
+     * All known devices mapped to their MAC-Address.
+     */
+    private final Map<Long, Device> devices = new HashMap<>();
+
+    /**
+     * All listeners that should be notified about device events.
+     */
+    private final EventListenerList listenerList = new EventListenerList();
+
+    /**
+     * The amount of devices that have appeared.
+     */
+    private final LongAdder appeared = new LongAdder();
+
+    /**
+     * The amount of changed responses.
+     */
+    private final LongAdder changed = new LongAdder();
+
+    /**
+     * The amount of devices that have disappeared.
+     */
+    private final LongAdder disappeared = new LongAdder();
+
+    /**
+     * Creates a new {@link DeviceMonitor}.
+     *
+     * @param expiryMillis the milliseconds after which a silent device is
+     *                     treated as disappeared
+     */
+    public DeviceMonitor(long expiryMillis) {
+        if (expiryMillis <= 0) {
+            throw new IllegalArgumentException("expiryMillis must be positive");
+        }
+        this.expiryMillis = expiryMillis;
+    }
+
+    /**
+     * {@code MonitorListener}s are notified about changes of the monitored
+     * devices.
+     */
+    public interface MonitorListener extends EventListener {
+
+        /**
+         * Invoked when a device answered for the first time.
+         *
+         * @param service the first response of the device
+         */
+        void onDeviceAppeared(IUbntService service);
+
+        /**
+         * Invoked when the response of a device differs from its previous
+         * response of the same packet version.
+         *
+         * @param previous the previous response
+         * @param service  the new response
+         */
+        void onDeviceChanged(IUbntService previous, IUbntService service);
+
+        /**
+         * Invoked when a device has not answered within the expiry time.
+         *
+         * @param service the last response of the device
+         */
+        void onDeviceDisappeared(IUbntService service);
+    }
+
+    /**
+     * Adds the given {@link MonitorListener}.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(MonitorListener listener) {
+        listenerList.add(MonitorListener.class, listener);
+    }
+
+    /**
+     * Removes the given {@link MonitorListener}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(MonitorListener listener) {
+        listenerList.remove(MonitorListener.class, listener);
+    }
+
+    /**
+     * Updates the last-seen time of the device that sent the given response
+     * and notifies all listeners if the device is new or its response has
+     * changed. Responses without a MAC-Address can't be tracked and are
+     * released immediately.
+     *
+     * @param service the new service
+     */
+    @Override
+    public void onServiceLocated(IUbntService service) {
+        long mac = ServiceRegistry.macOf(service);
+        if (mac == ServiceRegistry.NO_MAC) {
+            logger.fine("[MON]::Skipping response without MAC from " + service.getSourceAddress());
+            service.release();
+            return;
+        }
+
+        while (true) {
+            Device device;
+            synchronized (devices) {
+                device = devices.computeIfAbsent(mac, key -> new Device());
+            }
+
+            // Events of one device are serialized, so a response is not
+            // released while listeners are still notified about it.
+            synchronized (device) {
+                if (device.expired) {
+                    // The device has expired in the meantime
+                    continue;
+                }
+
+                device.lastSeen = System.currentTimeMillis();
+                boolean      appeared = device.latest == null;
+                IUbntService previous = device.put(service);
+                if (appeared) {
+                    this.appeared.increment();
+                    for (MonitorListener listener : listenerList.getListeners(MonitorListener.class)) {
+                        listener.onDeviceAppeared(service);
+                    }
+                } else if (previous != null && hasChanged(previous, service)) {
+                    changed.increment();
+                    for (MonitorListener listener : listenerList.getListeners(MonitorListener.class)) {
+                        listener.onDeviceChanged(previous, service);
+                    }
+                }
+
+                if (previous != null) {
+                    previous.release();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all devices that have not answered within the expiry time and
+     * notifies all listeners about them.
+     */
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    /**
+     * Removes all devices that have not answered since
+     * {@code now - expiryMillis} and notifies all listeners about them.
+     *
+     * @param now the current time in milliseconds
+     */
+    public void expire(long now) {
+        List<Map.Entry<Long, Device>> candidates = new ArrayList<>();
+        synchronized (devices) {
+            for (Map.Entry<Long, Device> entry : devices.entrySet()) {
+                if (now - entry.getValue().lastSeen >= expiryMillis) {
+                    candidates.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                }
+            }
+        }
+
+        for (Map.Entry<Long, Device> candidate : candidates) {
+            Device device = candidate.getValue();
+            synchronized (device) {
+                // The device may have answered since it has been selected
+                if (device.expired || now - device.lastSeen < expiryMillis) {
+                    continue;
+                }
+                synchronized (devices) {
+                    devices.remove(candidate.getKey(), device);
+                }
+                device.expired = true;
+                logger.fine("[MON]::Expired(lastSeen=" + device.lastSeen + ")");
+                if (device.latest != null) {
+                    disappeared.increment();
+                    for (MonitorListener listener : listenerList.getListeners(MonitorListener.class)) {
+                        listener.onDeviceDisappeared(device.latest);
+                    }
+                }
+                device.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the latest response of every monitored device. A returned
+     * service stays valid until its device answers again or disappears.
+     * Devices are added before their first response is stored, so devices
+     * without a response yet are skipped.
+     *
+     * @return a snapshot of all devices
+     */
+    public List<IUbntService> getServices() {
+        synchronized (devices) {
+            List<IUbntService> services = new ArrayList<>(devices.size());
+            for (Device device : devices.values()) {
+                IUbntService latest = device.latest;
+                if (latest != null) {
+                    services.add(latest);
+                }
+            }
+            return services;
+        }
+    }
+
+    /**
+     * Returns the amount of monitored devices.
+     *
+     * @return the device count
+     */
+    public int size() {
+        synchronized (devices) {
+            return devices.size();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDeviceCount() {
+        return size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAppearedCount() {
+        return appeared.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getChangedCount() {
+        return changed.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDisappearedCount() {
+        return disappeared.sum();
+    }
+
+    /**
+     * Returns the expiry time of this monitor.
+     *
+     * @return the milliseconds after which a silent device disappears
+     */
+    @Override
+    public long getExpiryMillis() {
+        return expiryMillis;
+    }
+
+    /**
+     * Returns whether the records of both responses differ. Records whose
+     * value changes with every response are ignored.
+     *
+     * @param previous the previous response
+     * @param service  the new response
+     * @return {@code true} if the device has changed
+     */
+    protected boolean hasChanged(IUbntService previous, IUbntService service) {
+        Iterator<IUbntService.Record> iterator = previous.iterator();
+        for (IUbntService.Record record : service) {
+            if (isVolatile(record)) {
+                continue;
+            }
+
+            IUbntService.Record other = null;
+            while (iterator.hasNext()) {
+                other = iterator.next();
+                if (!isVolatile(other)) break;
+                other = null;
+            }
+            if (other == null || other.getType() != record.getType()
+                    || !Objects.equals(other.getPayload(), record.getPayload())) {
+                return true;
+            }
+        }
+
+        while (iterator.hasNext()) {
+            if (!isVolatile(iterator.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given record changes with every response.
+     *
+     * @param record the record
+     * @return {@code true} if the record should not be compared
+     */
+    private static boolean isVolatile(IUbntService.Record record) {
+        return record.getType() == UPTIME || record.getType() == SEQ;
+    }
+
+    /**
+     * The state of a monitored device.
+     */
+    private static final class Device {
+
+        /**
+         * The latest response per packet version.
+         */
+        private IUbntService[] versions = new IUbntService[3];
+
+        /**
+         * The latest response of any version.
+         */
+        private volatile IUbntService latest;
+
+        /**
+         * The time of the latest response in milliseconds. This field is
+         * read without holding the device's lock while expiring devices.
+         */
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        /**
+         * Whether this device has been removed from the monitor.
+         */
+        private boolean expired;
+
+        /**
+         * Stores the given response.
+         *
+         * @param service the new response
+         * @return the replaced response of the same version or {@code null}
+         */
+        private IUbntService put(IUbntService service) {
+            int version = Math.max(0, service.getPacketVersion());
+            if (version >= versions.length) {
+                versions = Arrays.copyOf(versions, version + 1);
+            }
+            IUbntService previous = versions[version];
+            versions[version] = service;
+            latest = service;
+            return previous;
+        }
+
+        /**
+         * Releases all stored responses.
+         */
+        private void release() {
+            for (IUbntService service : versions) {
+                if (service != null) {
+                    service.release();
+                }
+            }
+        }
+    }
+}
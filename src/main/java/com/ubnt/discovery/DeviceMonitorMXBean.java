@@ -0,0 +1,33 @@
+package com.ubnt.discovery; //@date 16.10.2026
+
+/**
+ * The management interface of a {@link DeviceMonitor}, registered as
+ * {@code com.ubnt:type=DeviceMonitor}.
+ */
+public interface DeviceMonitorMXBean {
+
+    /**
+     * @return the amount of monitored devices
+     */
+    int getDeviceCount();
+
+    /**
+     * @return the amount of devices that have appeared
+     */
+    long getAppearedCount();
+
+    /**
+     * @return the amount of changed responses
+     */
+    long getChangedCount();
+
+    /**
+     * @return the amount of devices that have disappeared
+     */
+    long getDisappearedCount();
+
+    /**
+     * @return the milliseconds after which a silent device disappears
+     */
+    long getExpiryMillis();
+}
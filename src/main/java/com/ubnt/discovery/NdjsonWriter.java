@@ -0,0 +1,236 @@
+package com.ubnt.discovery; //@date 16.10.2026
+
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.IpInfo;
+import com.ubnt.net.ServiceDiff;
+import com.ubnt.net.ServiceRegistry;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes one JSON object per line (NDJSON) for every device event, for
+ * instance:
+ * <pre>
+ * {"event":"appeared","time":1760620931000,"mac":"80:2A:A8:53:58:7A",
+ *  "address":"172.39.0.148","interface":"wlan2","version":2,"model":"U7PG2",
+ *  "records":{"HOSTNAME":"ap-lobby","IPINFO":[{"mac":"...","ip":"..."}]}}
+ * </pre>
+ * (without the line breaks). Records of the same type that occur more than
+ * once are written as an array, records of an unknown type are skipped.
+ * Every line is flushed as soon as it has been written, so consumers don't
+ * have to wait for the end of a scan.
+ */
+public final class NdjsonWriter implements Flushable, Closeable {
+
+    /**
+     * The underlying writer.
+     */
+    private final Writer writer;
+
+    /**
+     * Creates a new {@link NdjsonWriter} on {@link System#out}.
+     */
+    public NdjsonWriter() {
+        this(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Creates a new {@link NdjsonWriter}.
+     *
+     * @param writer the writer to write all lines to
+     */
+    public NdjsonWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes a single line for the given event and flushes it.
+     *
+     * @param event   the event name
+     * @param service the service of the device
+     * @throws IOException if the line could not be written
+     */
+    public void write(String event, IUbntService service) throws IOException {
+        write(event, service, System.currentTimeMillis());
+    }
+
+    /**
+     * Writes a single line for an event that happened at the given time and
+     * flushes it.
+     *
+     * @param event   the event name
+     * @param service the service of the device
+     * @param time    the time of the event in milliseconds
+     * @throws IOException if the line could not be written
+     */
+    public void write(String event, IUbntService service, long time) throws IOException {
+        write(event, service, time, null);
+    }
+
+    /**
+     * Writes a single line for an event that happened at the given time and
+     * flushes it. The changed records are written as
+     * {@code "changes":[{"change":"firmware","old":"...","new":"..."}]}.
+     *
+     * @param event   the event name
+     * @param service the service of the device
+     * @param time    the time of the event in milliseconds
+     * @param deltas  the changed records or {@code null}
+     * @throws IOException if the line could not be written
+     */
+    public void write(String event, IUbntService service, long time, List<ServiceDiff.Delta> deltas)
+            throws IOException {
+        StringBuilder builder = new StringBuilder(256);
+        builder.append("{\"event\":");
+        string(builder, event);
+        builder.append(",\"time\":").append(time);
+
+        long mac = ServiceRegistry.macOf(service);
+        builder.append(",\"mac\":");
+        if (mac == ServiceRegistry.NO_MAC) {
+            builder.append("null");
+        } else {
+            string(builder, ServiceRegistry.formatMac(mac));
+        }
+        builder.append(",\"address\":");
+        string(builder, service.getSourceAddress() == null ? null : service.getSourceAddress().getHostAddress());
+        builder.append(",\"interface\":");
+        string(builder, service.getInterface());
+        builder.append(",\"version\":").append(service.getPacketVersion());
+        builder.append(",\"model\":");
+        string(builder, service.getModelName());
+
+        if (deltas != null) {
+            builder.append(",\"changes\":[");
+            for (int i = 0; i < deltas.size(); i++) {
+                ServiceDiff.Delta delta = deltas.get(i);
+                if (i > 0) builder.append(',');
+                builder.append("{\"change\":");
+                string(builder, delta.getChange().name().toLowerCase(Locale.ROOT));
+                builder.append(",\"old\":");
+                string(builder, delta.getOldValue());
+                builder.append(",\"new\":");
+                string(builder, delta.getNewValue());
+                builder.append('}');
+            }
+            builder.append(']');
+        }
+
+        Map<String, List<Object>> records = new LinkedHashMap<>();
+        for (IUbntService.Record record : service) {
+            if (record.isDefined()) {
+                records.computeIfAbsent(record.getTypeName(), key -> new ArrayList<>(1))
+                       .add(record.getPayload());
+            }
+        }
+        builder.append(",\"records\":{");
+        boolean first = true;
+        for (Map.Entry<String, List<Object>> entry : records.entrySet()) {
+            if (!first) builder.append(',');
+            first = false;
+
+            string(builder, entry.getKey());
+            builder.append(':');
+            List<Object> values = entry.getValue();
+            if (values.size() == 1 && !(values.get(0) instanceof IpInfo)) {
+                value(builder, values.get(0));
+            } else {
+                builder.append('[');
+                for (int i = 0; i < values.size(); i++) {
+                    if (i > 0) builder.append(',');
+                    value(builder, values.get(i));
+                }
+                builder.append(']');
+            }
+        }
+        builder.append("}}\n");
+
+        synchronized (writer) {
+            writer.write(builder.toString());
+            writer.flush();
+        }
+    }
+
+    /**
+     * Appends the given payload as a JSON value.
+     *
+     * @param builder the target
+     * @param payload the payload
+     */
+    private static void value(StringBuilder builder, Object payload) {
+        if (payload instanceof Number || payload instanceof Boolean) {
+            builder.append(payload);
+        } else if (payload instanceof IpInfo) {
+            IpInfo info = (IpInfo) payload;
+            builder.append("{\"mac\":");
+            string(builder, info.getMAC());
+            builder.append(",\"ip\":");
+            string(builder, info.getIP());
+            builder.append('}');
+        } else {
+            string(builder, payload == null ? null : payload.toString());
+        }
+    }
+
+    /**
+     * Appends the given string as an escaped JSON string.
+     *
+     * @param builder the target
+     * @param value   the string or {@code null}
+     */
+    private static void string(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':  builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Flushes the underlying writer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (writer) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Closes the underlying writer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
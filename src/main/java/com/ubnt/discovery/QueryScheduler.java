@@ -1,16 +1,42 @@
 package com.ubnt.discovery; //@date 06.12.2022
 
 import com.ubnt.net.QueryServer;
+import com.ubnt.net.UbntExecutors;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@code QueryScheduler} objects are used to schedule the message-sending
- * of query-packets. Usually, this {@link Runnable} is executed on a new daemon
- * thread to ensure that it is running as a background process.
+ * of query-packets. All work is done by tasks on a shared
+ * {@link ScheduledExecutorService} with a single daemon thread: the query
+ * burst, one countdown tick per {@code sleepTimeMillis / ratio}
+ * milliseconds and the final {@link QueryServer#doFinish()} call. Overlapping
+ * scans therefore don't need any additional threads. Only the query bursts,
+ * which may block on the network or pace a subnet sweep, are handed over to
+ * {@link UbntExecutors#getDefault()}.
+ * <p>
+ * With a {@link DeviceMonitor}, the scheduler runs in monitor mode: all
+ * servers keep their channels open and the query packets are sent again
+ * after every interval until this scheduler is cancelled. Devices that have
+ * not answered within the monitor's expiry time are removed at the end of
+ * each interval.
  *
  * @see UbntDiscoveryTool#scheduleScan()
  */
 public class QueryScheduler implements Runnable {
 
+    /**
+     * The minimum milliseconds between two ticks.
+     */
+    private static final long MIN_TICK_MILLIS = 100L;
+
+    /**
+     * The executor shared by all schedulers that are created without an
+     * explicit executor.
+     */
+    private static volatile ScheduledExecutorService sharedExecutor;
+
     /**
      * The milliseconds to sleep.
      */
@@ -28,7 +54,38 @@ public class QueryScheduler implements Runnable {
      */
     private volatile boolean running;
 
-    private ScheduleListener listener;
+    private volatile ScheduleListener listener;
+
+    /**
+     * The monitor of this scheduler or {@code null} if this scheduler only
+     * runs a single scan.
+     */
+    private final DeviceMonitor monitor;
+
+    /**
+     * The executor running all tasks of this scheduler.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The pending query burst.
+     */
+    private volatile Future<?> queryFuture;
+
+    /**
+     * The periodic countdown task.
+     */
+    private ScheduledFuture<?> tickFuture;
+
+    /**
+     * The number of ticks in the current interval.
+     */
+    private final AtomicInteger ticks = new AtomicInteger();
+
+    /**
+     * Counted down once this scheduler has finished.
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
 
     /**
      * Creates a new default {@link QueryScheduler}.
@@ -44,12 +101,69 @@ public class QueryScheduler implements Runnable {
      * @param ratio see {@link #ratio}
      */
     public QueryScheduler(long sleepTimeMillis, int ratio, ScheduleListener scheduleListener) {
+        this(sleepTimeMillis, ratio, scheduleListener, null);
+    }
+
+    /**
+     * Creates a new {@link QueryScheduler} that runs in monitor mode if the
+     * given monitor is not {@code null}.
+     *
+     * @param sleepTimeMillis the milliseconds between two queries
+     * @param ratio see {@link #ratio}
+     * @param scheduleListener the listener notified on every tick
+     * @param monitor the monitor to expire devices on
+     */
+    public QueryScheduler(long sleepTimeMillis, int ratio, ScheduleListener scheduleListener,
+                          DeviceMonitor monitor) {
+        this(sleepTimeMillis, ratio, scheduleListener, monitor, getSharedExecutor());
+    }
+
+    /**
+     * Creates a new {@link QueryScheduler} that runs all of its tasks on the
+     * given executor.
+     *
+     * @param sleepTimeMillis the milliseconds between two queries
+     * @param ratio see {@link #ratio}
+     * @param scheduleListener the listener notified on every tick
+     * @param monitor the monitor to expire devices on, may be {@code null}
+     * @param executor the executor to schedule all tasks on
+     */
+    public QueryScheduler(long sleepTimeMillis, int ratio, ScheduleListener scheduleListener,
+                          DeviceMonitor monitor, ScheduledExecutorService executor) {
         this.sleepTimeMillis = sleepTimeMillis;
-        this.ratio           = ratio;
+        this.ratio           = Math.max(1, ratio);
         this.running         = false;
+        this.monitor         = monitor;
+        this.executor        = executor;
         setListener(scheduleListener);
     }
 
+    /**
+     * Returns the executor shared by all schedulers. It is created on first
+     * use and runs on a single daemon thread.
+     *
+     * @return the shared executor
+     */
+    public static ScheduledExecutorService getSharedExecutor() {
+        ScheduledExecutorService executor = sharedExecutor;
+        if (executor == null) {
+            synchronized (QueryScheduler.class) {
+                executor = sharedExecutor;
+                if (executor == null) {
+                    ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, runnable -> {
+                        Thread thread = new Thread(runnable, "QueryScheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    // Cancelled ticks should not stay in the queue
+                    pool.setRemoveOnCancelPolicy(true);
+                    sharedExecutor = executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
     /**
      * {@link ScheduleListener} objects are used to listen on every second of
      * this timer.
@@ -67,59 +181,123 @@ public class QueryScheduler implements Runnable {
     }
 
     /**
-     * Cancels this task.
+     * Returns the milliseconds between two ticks.
+     *
+     * @return the tick length
+     */
+    private long getTickMillis() {
+        return Math.max(MIN_TICK_MILLIS, sleepTimeMillis / ratio);
+    }
+
+    /**
+     * Starts this scheduler without blocking. The query packets are sent
+     * immediately and the countdown starts one tick later. A scheduler can
+     * only be started once.
+     *
+     * @return {@code false} if this scheduler has already been started
+     */
+    public synchronized boolean start() {
+        if (running || finished.getCount() == 0) {
+            return false;
+        }
+        running = true;
+
+        long time = getTickMillis();
+        queryFuture = UbntExecutors.getDefault().submit(this::sendAll);
+        tickFuture  = executor.scheduleAtFixedRate(this::tick, time, time, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Cancels this task. All pending tasks are cancelled and the servers are
+     * finished immediately.
      */
-    public synchronized void cancel() {
-        this.running = false;
+    public void cancel() {
+        finish();
     }
 
     /**
-     * When an object implementing interface <code>Runnable</code> is used
-     * to create a thread, starting the thread causes the object's
-     * <code>run</code> method to be called in that separately executing
-     * thread.
-     * <p>
-     * The general contract of the method <code>run</code> is that it may
-     * take any action whatsoever.
+     * Starts this scheduler and blocks until it has finished or has been
+     * cancelled.
      *
      * @see Thread#run()
      */
     @Override
-    public synchronized void run() {
-        long time = 100L;
-        synchronized (this) {
-            long sleepTime = sleepTimeMillis / ratio;
-            if (sleepTime >= 100) {
-                time = sleepTime;
-            }
+    public void run() {
+        start();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            running = true;
-            long seconds = time * ratio;
-            sendAll();
-            for (int i = 0; i < ratio && running; i++) {
-                long second = seconds - ((long) i * time);
-                try {
-                    // TEST: using the yield() method
-                    Thread.yield();
-
-                    //noinspection BusyWait
-                    Thread.sleep(time);
-                    Thread.yield();
-                    if (listener != null) {
-                        listener.nextSecond(!running, second);
-                    }
-                } catch (InterruptedException e) {
-                    // ignored exception: logger would be unnecessary
+    /**
+     * Counts down one tick and notifies the listener. The last tick of an
+     * interval either finishes this scheduler or, in monitor mode, expires
+     * all silent devices and sends the query packets again, unless the
+     * previous queries are still being sent.
+     */
+    private void tick() {
+        if (!running) {
+            return;
+        }
+
+        int  tick   = ticks.getAndIncrement();
+        long time   = getTickMillis();
+        long second = time * ratio - (long) tick * time;
+        ScheduleListener listener = this.listener;
+        if (listener != null) {
+            listener.nextSecond(false, second);
+        }
+
+        if (tick + 1 >= ratio) {
+            if (monitor == null) {
+                finish();
+            } else {
+                ticks.set(0);
+                monitor.expire();
+                // A subnet sweep may take longer than an interval. Its scan
+                // must not be restarted while it is still sending.
+                Future<?> previous = queryFuture;
+                if (previous == null || previous.isDone()) {
+                    queryFuture = UbntExecutors.getDefault().submit(UbntDiscoveryTool::query);
                 }
             }
+        }
+    }
+
+    /**
+     * Cancels all pending tasks, finishes all servers and notifies the
+     * listener. The servers are finished first, so no service arrives while
+     * the listener displays or exports the result. Subsequent calls have no
+     * effect.
+     */
+    private void finish() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
             running = false;
-            if (listener != null) {
-                listener.nextSecond(true, 0L);
+            if (tickFuture != null) {
+                tickFuture.cancel(false);
+            }
+            if (queryFuture != null) {
+                queryFuture.cancel(false);
             }
+        }
 
+        try {
             for (QueryServer server : UbntDiscoveryTool.getServers()) {
                 server.doFinish();
             }
+
+            ScheduleListener listener = this.listener;
+            if (listener != null) {
+                listener.nextSecond(true, 0L);
+            }
+        } finally {
+            finished.countDown();
         }
     }
 
@@ -142,4 +320,14 @@ public class QueryScheduler implements Runnable {
     public boolean isRunning() {
         return running;
     }
+
+    /**
+     * Returns the monitor of this scheduler.
+     *
+     * @return the monitor or {@code null} if this scheduler is not running
+     *         in monitor mode
+     */
+    public DeviceMonitor getMonitor() {
+        return monitor;
+    }
 }
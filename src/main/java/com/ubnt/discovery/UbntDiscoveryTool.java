@@ -8,6 +8,7 @@ import com.beust.jcommander.ParameterException;
 import com.ubnt.net.*;
 import com.ubnt.ui.UbntDiscoveryToolFrame;
 import com.ubnt.xml.UbntServiceXMLHandler;
+import com.ubnt.xml.UbntServiceXMLStreamWriter;
 import org.xml.sax.SAXException;
 
 import javax.swing.*;
@@ -29,14 +30,16 @@ import static com.ubnt.net.IUbntService.IPINFO;
  * <p>
  * This tool contains the following threading model:
  * <ul>
- *     <li><b>Scheduler:</b> A daemon {@link Thread} sending query packets
- *     every 10 seconds on all servers via {@link #getServers()}.</li>
+ *     <li><b>Scheduler:</b> A single daemon {@link Thread} shared by all
+ *     {@link QueryScheduler}s that sends query packets on all servers via
+ *     {@link #getServers()} and counts down the scan.</li>
  *     <li>
- *      <b>QueryServer[]:</b> Every {@link QueryServer} will be started
- *      on a new {@code Thread} (most likely a daemon thread)
+ *      <b>QueryServer[]:</b> Every {@link QueryServer} is started by the
+ *      query burst, which runs on {@link UbntExecutors#getDefault()}
  *         <ul>
- *              <li><b>IDiscoveryChannel[]:</b> every channel will get a new
- *              {@code Thread} to listen for {@code DatagramPacket}s.</li>
+ *              <li><b>IDiscoveryChannel[]:</b> every channel will get its
+ *              own task on the same executor to listen for
+ *              {@code DatagramPacket}s.</li>
  *         </ul>
  *     </li>
  * </ul>
@@ -93,6 +96,29 @@ public final class UbntDiscoveryTool {
      */
     private static QueryScheduler scheduler;
 
+    /**
+     * The store of all known devices or {@code null} if
+     * {@code ubnt.inventory.dir} is not set.
+     */
+    private static InventoryStore inventory;
+
+    /**
+     * The listener that records sightings in the {@link #inventory} on its
+     * own thread or {@code null}.
+     */
+    private static AsyncDiscoveryListener inventoryListener;
+
+    /**
+     * The maximum amount of sightings queued for the inventory.
+     */
+    private static final int INVENTORY_QUEUE = 4096;
+
+    /**
+     * The milliseconds the inventory waits for queued sightings when the
+     * tool exits.
+     */
+    private static final long INVENTORY_DRAIN_MILLIS = 2000L;
+
     /**
      * Global configuration.
      */
@@ -167,21 +193,66 @@ public final class UbntDiscoveryTool {
     }
 
     /**
-     * Creates all {@link QueryServer} instances.
+     * Creates all {@link QueryServer} instances and registers them and the
+     * {@link DiscoveryMetrics} with JMX. The {@link InventoryStore} is
+     * opened and added as the first listener of every server; it is
+     * notified through a queue, so sightings are not written on the
+     * receiving threads.
      */
     public static void setupServers() {
+        DiscoveryMetrics.register(DiscoveryMetrics.getDefault(), "DiscoveryMetrics", null);
+        openInventory();
         servers = new QueryServer[serverClasses.length];
         for (int i = 0; i < serverClasses.length; i++) {
             Class<?> cls = serverClasses[i];
             try {
                 QueryServer server = (QueryServer) cls.getDeclaredConstructor().newInstance();
                 servers[i] = server;
+                server.addListener(inventoryListener);
+                if (server instanceof IDiscoveryServer) {
+                    DiscoveryMetrics.register(server, "DiscoveryServer", cls.getSimpleName());
+                }
             } catch (ReflectiveOperationException e) {
                 System.err.println(e.toString());
             }
         }
     }
 
+    /**
+     * Opens the {@link InventoryStore} in the directory given by
+     * {@code ubnt.inventory.dir}, if any. The store is closed by a shutdown
+     * hook after the queued sightings have been written.
+     */
+    private static void openInventory() {
+        String directory = System.getProperty("ubnt.inventory.dir");
+        if (inventory != null || directory == null || directory.isBlank()) {
+            return;
+        }
+        try {
+            InventoryStore         store    = new InventoryStore(new File(directory));
+            AsyncDiscoveryListener listener = new AsyncDiscoveryListener(store, INVENTORY_QUEUE);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                listener.awaitDelivery(INVENTORY_DRAIN_MILLIS);
+                listener.close();
+                store.close();
+            }));
+            inventory         = store;
+            inventoryListener = listener;
+        } catch (IOException e) {
+            System.err.println(e.toString());
+        }
+    }
+
+    /**
+     * Returns the store of all known devices.
+     *
+     * @return the store or {@code null} if {@code ubnt.inventory.dir} is
+     *         not set
+     */
+    public static InventoryStore getInventory() {
+        return inventory;
+    }
+
     /**
      * Loads all tool configurations.
      */
@@ -199,6 +270,53 @@ public final class UbntDiscoveryTool {
         if (getProperty("ubnt.ipv6.enabled", "false").equalsIgnoreCase("true")) {
             System.setProperty("ubnt.ipv6.enabled", Boolean.TRUE.toString());
         }
+
+        if (getProperty("ubnt.nio.enabled", "false").equalsIgnoreCase("true")) {
+            System.setProperty("ubnt.nio.enabled", Boolean.TRUE.toString());
+        }
+
+        if (getProperty("ubnt.parser.lazy", "false").equalsIgnoreCase("true")) {
+            System.setProperty("ubnt.parser.lazy", Boolean.TRUE.toString());
+        }
+
+        if (getProperty("ubnt.threads.virtual", "false").equalsIgnoreCase("true")) {
+            System.setProperty("ubnt.threads.virtual", Boolean.TRUE.toString());
+        }
+
+        String window = getProperty("ubnt.dedup.window", null);
+        if (window != null && System.getProperty("ubnt.dedup.window") == null) {
+            System.setProperty("ubnt.dedup.window", window);
+        }
+
+        String mode = getProperty("ubnt.query.mode", null);
+        if (mode != null && System.getProperty("ubnt.query.mode") == null) {
+            System.setProperty("ubnt.query.mode", mode);
+        }
+
+        String ranges = getProperty("ubnt.sweep.ranges", null);
+        if (ranges != null && System.getProperty("ubnt.sweep.ranges") == null) {
+            System.setProperty("ubnt.sweep.ranges", ranges);
+        }
+
+        String rate = getProperty("ubnt.sweep.rate", null);
+        if (rate != null && System.getProperty("ubnt.sweep.rate") == null) {
+            System.setProperty("ubnt.sweep.rate", rate);
+        }
+
+        String inventoryDir = getProperty("ubnt.inventory.dir", null);
+        if (inventoryDir != null && System.getProperty("ubnt.inventory.dir") == null) {
+            System.setProperty("ubnt.inventory.dir", inventoryDir);
+        }
+
+        String inventoryInterval = getProperty("ubnt.inventory.interval", null);
+        if (inventoryInterval != null && System.getProperty("ubnt.inventory.interval") == null) {
+            System.setProperty("ubnt.inventory.interval", inventoryInterval);
+        }
+
+        String jmx = getProperty("ubnt.jmx.enabled", null);
+        if (jmx != null && System.getProperty("ubnt.jmx.enabled") == null) {
+            System.setProperty("ubnt.jmx.enabled", jmx);
+        }
     }
 
     /**
@@ -281,7 +399,8 @@ public final class UbntDiscoveryTool {
     }
 
     /**
-     * Starts the scheduler thread that sends query packets every 10 seconds.
+     * Starts a new scan that sends query packets and finishes after 10
+     * seconds.
      */
     public static void scheduleScan() {
         if (scheduler != null) {
@@ -290,10 +409,7 @@ public final class UbntDiscoveryTool {
             }
         }
         scheduler = new QueryScheduler(10000L, 20, (QueryScheduler.ScheduleListener) frame);
-
-        Thread schedulerThread = new Thread(scheduler);
-        schedulerThread.setDaemon(true);
-        schedulerThread.start();
+        scheduler.start();
     }
 
     /**
@@ -354,12 +470,26 @@ public final class UbntDiscoveryTool {
     public static void queryAndStart() {
         for (QueryServer server : getServers()) {
             try {
-                Thread thread = new Thread(server);
-                if (server.isDaemon()) {
-                    thread.setDaemon(true);
-                }
+                // The server only submits its receiving tasks, so it can be
+                // started before the queries (and a possibly long sweep)
+                // are sent.
+                server.run();
+                server.sendAll();
+            } catch (IOException e) {
+                //log that
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Sends all query packets on the running {@link QueryServer}s without
+     * starting them again.
+     */
+    public static void query() {
+        for (QueryServer server : getServers()) {
+            try {
                 server.sendAll();
-                thread.start();
             } catch (IOException e) {
                 //log that
                 e.printStackTrace();
@@ -380,14 +510,24 @@ public final class UbntDiscoveryTool {
      * Command line interface (CLI) of the {@link UbntDiscoveryTool} class.
      */
     public static final class CLI implements
-            IDiscoveryListener, QueryScheduler.ScheduleListener {
+            IDiscoveryListener, QueryScheduler.ScheduleListener, DeviceMonitor.MonitorListener,
+            ServiceDiff.DiffListener {
 
         // internal logger that displays useful information
         private static final Logger logger =
                 Logger.getLogger(UbntDiscoveryTool.class.getSimpleName());
 
-        // simple list storing all discovered services
-        private final List<IUbntService> services = new ArrayList<>();
+        // registry storing all discovered services by their MAC-Address
+        private final ServiceRegistry services = new ServiceRegistry();
+
+        // streams all device events with -format ndjson, null otherwise
+        private NdjsonWriter ndjson;
+
+        // the monitor receiving all services with -monitor or -format ndjson
+        private DeviceMonitor deviceMonitor;
+
+        // compares all services with the ones given by -diff, null otherwise
+        private ServiceDiff diff;
 
         @Parameter(names = {"-I", "-interface"}, variableArity = true, descriptionKey = "cli.option.interface")
         List<String> interfaces = new ArrayList<>();
@@ -404,6 +544,39 @@ public final class UbntDiscoveryTool {
         @Parameter(names = "-file", descriptionKey = "cli.option.xml")
         String xmlPath;
 
+        @Parameter(names = "-export", descriptionKey = "cli.option.export")
+        String exportPath;
+
+        @Parameter(names = "-nio", descriptionKey = "cli.option.nio")
+        boolean nio = false;
+
+        @Parameter(names = "-monitor", descriptionKey = "cli.option.monitor")
+        boolean monitor = false;
+
+        @Parameter(names = "-expire", descriptionKey = "cli.option.expire")
+        long expire = 0L;
+
+        @Parameter(names = "-format", descriptionKey = "cli.option.format")
+        String format = "text";
+
+        @Parameter(names = "-mode", descriptionKey = "cli.option.mode", converter = QueryModeConverter.class)
+        UbntDiscoveryServer.QueryMode mode;
+
+        @Parameter(names = "-sweep", variableArity = true, descriptionKey = "cli.option.sweep")
+        List<String> sweep = new ArrayList<>();
+
+        @Parameter(names = "-rate", descriptionKey = "cli.option.rate")
+        int rate = SubnetSweep.DEFAULT_RATE;
+
+        @Parameter(names = "-inventory", descriptionKey = "cli.option.inventory")
+        String inventoryPath;
+
+        @Parameter(names = "-diff", descriptionKey = "cli.option.diff")
+        String diffPath;
+
+        @Parameter(names = "-stats", descriptionKey = "cli.option.stats")
+        boolean stats = false;
+
         @Parameter(names = {"-h", "-help"}, descriptionKey = "cli.option.help")
         boolean help;
 
@@ -433,6 +606,11 @@ public final class UbntDiscoveryTool {
                     commander.usage();
                     System.exit(0);
                 }
+                if (cli.format.equalsIgnoreCase("ndjson")) {
+                    cli.ndjson = new NdjsonWriter();
+                } else if (!cli.format.equalsIgnoreCase("text")) {
+                    throw new ParameterException("Unknown output format: " + cli.format);
+                }
             } catch (ParameterException e) {
                 logger.warning(e.toString());
                 commander.usage();
@@ -440,32 +618,192 @@ public final class UbntDiscoveryTool {
             }
 
             cli.configureLogging();
+            if (cli.stats) {
+                // Covers finished scans, imported files and interrupted monitors
+                Runtime.getRuntime().addShutdownHook(new Thread(cli::displayStatistics));
+            }
+            if (cli.nio) {
+                System.setProperty("ubnt.nio.enabled", Boolean.TRUE.toString());
+            }
+
+            if (cli.mode != null) {
+                System.setProperty("ubnt.query.mode", cli.mode.name());
+            }
+
+            if (!cli.sweep.isEmpty()) {
+                String ranges = String.join(",", cli.sweep);
+                try {
+                    // validates all ranges before any server is created
+                    new SubnetSweep(ranges, cli.rate);
+                } catch (IllegalArgumentException e) {
+                    logger.warning(e.getMessage());
+                    commander.usage();
+                    System.exit(1);
+                }
+                System.setProperty("ubnt.sweep.ranges", ranges);
+                System.setProperty("ubnt.sweep.rate", String.valueOf(cli.rate));
+            }
+
+            if (cli.inventoryPath != null) {
+                System.setProperty("ubnt.inventory.dir", cli.inventoryPath);
+            }
+
+            if (cli.diffPath != null) {
+                cli.loadBaseline();
+            }
 
             if (cli.xmlPath == null) {
                 setupServers();
+                cli.displayKnownDevices();
+                DeviceMonitor monitor = null;
+                if (cli.monitor || cli.ndjson != null) {
+                    // Devices disappear after three missed queries by default.
+                    // Streaming output uses the monitor to print devices as
+                    // soon as they appear or change.
+                    monitor = new DeviceMonitor(cli.expire > 0 ? cli.expire : cli.seconds * 3);
+                    monitor.addListener(cli);
+                    cli.deviceMonitor = monitor;
+                    DiscoveryMetrics.register(monitor, "DeviceMonitor", null);
+                }
                 for (QueryServer server : getServers()) {
-                    server.addListener(cli);
+                    server.addListener(monitor != null ? monitor : cli);
+                    if (cli.diff != null) {
+                        server.addListener(cli::diffService);
+                    }
                 }
 
-                QueryScheduler scheduler = new QueryScheduler(cli.seconds, cli.ratio, cli);
-                Thread schedulerThread = new Thread(scheduler);
+                QueryScheduler scheduler = new QueryScheduler(cli.seconds, cli.ratio, cli,
+                                                              cli.monitor ? monitor : null);
                 logger.info("Starting to receive Packets...");
-                schedulerThread.start();
+                // The scheduler runs on a daemon thread, so the main thread
+                // has to wait for it.
+                scheduler.run();
             } else {
-                SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
-                UbntServiceXMLHandler handler = new UbntServiceXMLHandler(IUbntService.Factory.getDefaultFactory());
-                handler.addListener(cli);
-
-                try (InputStream stream = new FileInputStream(cli.xmlPath)) {
-                    SAXParser parser = saxParserFactory.newSAXParser();
-                    parser.parse(stream, handler);
+                try {
+                    readServices(new File(cli.xmlPath), cli.diff == null ? cli : service -> {
+                        cli.onServiceLocated(service);
+                        cli.diffService(service);
+                    });
                 } catch (IOException | SAXException | ParserConfigurationException e) {
                     logger.throwing(cli.getClass().getName(), "run", e);
                     System.exit(1);
                 }
 
-                cli.displayServices();
+                if (cli.diff == null) {
+                    cli.displayServices();
+                } else {
+                    cli.finishDiff();
+                }
+                cli.exportServices();
+            }
+        }
+
+        /**
+         * Reads all services of the given XML file or binary snapshot.
+         *
+         * @param file     the file
+         * @param listener the listener receiving every service
+         * @throws IOException                  if the file could not be read
+         * @throws SAXException                 if the XML file is malformed
+         * @throws ParserConfigurationException if no XML parser is available
+         */
+        private static void readServices(File file, IDiscoveryListener listener)
+                throws IOException, SAXException, ParserConfigurationException {
+            if (UbntSnapshotReader.isSnapshot(file)) {
+                try (UbntSnapshotReader reader = new UbntSnapshotReader(file)) {
+                    reader.readAll(listener);
+                }
+                return;
+            }
+
+            SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
+            UbntServiceXMLHandler handler = new UbntServiceXMLHandler(IUbntService.Factory.getDefaultFactory());
+            handler.addListener(listener);
+
+            try (InputStream stream = new FileInputStream(file)) {
+                SAXParser parser = saxParserFactory.newSAXParser();
+                parser.parse(stream, handler);
+            }
+        }
+
+        /**
+         * Loads the previous services given by {@code -diff}: an XML file, a
+         * binary snapshot or {@code inventory} for the devices known by the
+         * inventory, and creates the {@link ServiceDiff} every discovered
+         * service is compared with. Services of other interfaces than the
+         * included ones are skipped, so they are not reported as removed.
+         */
+        private void loadBaseline() {
+            List<IUbntService> list = new ArrayList<>();
+            if (diffPath.equalsIgnoreCase("inventory")) {
+                openInventory();
+                InventoryStore store = getInventory();
+                if (store == null) {
+                    logger.warning("[CLI] -diff inventory requires -inventory or ubnt.inventory.dir");
+                    System.exit(1);
+                }
+                list.addAll(store.getKnownServices());
+            } else {
+                try {
+                    readServices(new File(diffPath), list::add);
+                } catch (IOException | SAXException | ParserConfigurationException e) {
+                    logger.warning("[CLI] Could not read " + diffPath + ": " + e.getMessage());
+                    System.exit(1);
+                }
             }
+
+            list.removeIf(service -> !interfaces.isEmpty() && !interfaces.contains(service.getInterface()));
+            logger.info("[CLI] Loaded " + list.size() + " previous service(s) from " + diffPath);
+            diff = new ServiceDiff(list);
+            diff.addListener(this);
+        }
+
+        /**
+         * Writes all services to the file given by {@code -export}, if any.
+         * Services of other interfaces than the included ones are skipped.
+         * Files ending with {@value UbntSnapshotWriter#EXTENSION} are written
+         * as binary snapshot, all others as XML.
+         */
+        private void exportServices() {
+            if (exportPath == null) {
+                return;
+            }
+
+            List<IUbntService> list = collectServices();
+            File file = new File(exportPath);
+            try {
+                if (exportPath.endsWith(UbntSnapshotWriter.EXTENSION)) {
+                    try (UbntSnapshotWriter writer = new UbntSnapshotWriter(file)) {
+                        for (IUbntService service : list) {
+                            writer.append(service);
+                        }
+                    }
+                } else {
+                    try (UbntServiceXMLStreamWriter writer = new UbntServiceXMLStreamWriter(file)) {
+                        for (IUbntService service : list) {
+                            writer.append(service);
+                        }
+                    }
+                }
+                logger.info("[CLI] Exported " + list.size() + " service(s) to " + exportPath);
+            } catch (IOException e) {
+                logger.warning("[CLI] Could not export services: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Returns all discovered services of the included interfaces.
+         *
+         * @return the services of the monitor, if any, or the registry
+         */
+        private List<IUbntService> collectServices() {
+            List<IUbntService> list = new ArrayList<>();
+            for (IUbntService service : deviceMonitor != null ? deviceMonitor.getServices() : services.toList()) {
+                if (interfaces.isEmpty() || interfaces.contains(service.getInterface())) {
+                    list.add(service);
+                }
+            }
+            return list;
         }
 
         /**
@@ -476,6 +814,13 @@ public final class UbntDiscoveryTool {
             IDiscoveryServer.idsLogger.setLevel(logLevel);
             UbntDiscoveryServer.dsLogger.setLevel(logLevel);
             BaseServiceParser.vXLogger.setLevel(logLevel);
+
+            // Handlers only publish INFO and above by default
+            for (Handler handler : Logger.getLogger("").getHandlers()) {
+                if (handler.getLevel().intValue() > logLevel.intValue()) {
+                    handler.setLevel(logLevel);
+                }
+            }
         }
 
         /**
@@ -492,12 +837,11 @@ public final class UbntDiscoveryTool {
             }
 
             logger.info("[CLI] Received Discovery Response from " + service.getSourceAddress());
-            IUbntService cached = UbntIOUtilities.getCachedService(service, services);
+            IUbntService cached = services.upsert(service);
             if (cached == null) {
-                services.add(service);
                 logger.info("[CLI] Added new Service with MAC/Address: " + address);
             } else {
-                services.set(services.indexOf(cached), service);
+                cached.release();
                 logger.info("[CLI] Replaced Service at " + service.getSourceAddress() + " with newer response!");
             }
         }
@@ -510,24 +854,192 @@ public final class UbntDiscoveryTool {
          */
         @Override
         public void nextSecond(boolean finished, long second) {
+            if (finished && (monitor || ndjson != null)) {
+                // all devices have already been printed
+                if (diff != null) {
+                    finishDiff();
+                }
+                exportServices();
+                System.exit(0);
+            }
             if (finished) {
                 logger.info("[CLI] Finished receiving packets! (Got "+services.size()+" service[s])");
-                displayServices();
+                if (diff == null) {
+                    displayServices();
+                } else {
+                    finishDiff();
+                }
+                exportServices();
                 System.exit(0);
             }
         }
 
+        /**
+         * {@inheritDoc}
+         *
+         * @param service the first response of the device
+         */
+        @Override
+        public void onDeviceAppeared(IUbntService service) {
+            displayEvent('+', "appeared", service);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param previous the previous response
+         * @param service  the new response
+         */
+        @Override
+        public void onDeviceChanged(IUbntService previous, IUbntService service) {
+            displayEvent('~', "changed", service);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param service the last response of the device
+         */
+        @Override
+        public void onDeviceDisappeared(IUbntService service) {
+            displayEvent('-', "disappeared", service);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param service the current service
+         */
+        @Override
+        public void onServiceAdded(IUbntService service) {
+            displayEvent('+', "added", service);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param previous the previous service
+         * @param service  the current service
+         * @param deltas   the changed records
+         */
+        @Override
+        public void onServiceChanged(IUbntService previous, IUbntService service, List<ServiceDiff.Delta> deltas) {
+            if (ndjson != null) {
+                try {
+                    ndjson.write("modified", service, System.currentTimeMillis(), deltas);
+                } catch (IOException e) {
+                    logger.warning("[CLI] Could not write event: " + e.getMessage());
+                }
+                return;
+            }
+
+            // Monitor events must not end up between the lines of a change
+            synchronized (System.out) {
+                displayEvent('~', "modified", service);
+                for (ServiceDiff.Delta delta : deltas) {
+                    System.out.printf("%13s: %s -> %s\n", delta.getChange().name().toLowerCase(Locale.ROOT),
+                                      delta.getOldValue(), delta.getNewValue());
+                }
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @param previous the previous service
+         */
+        @Override
+        public void onServiceRemoved(IUbntService previous) {
+            displayEvent('-', "removed", previous);
+        }
+
+        /**
+         * Compares the given service with the services given by {@code -diff}
+         * as soon as it has been discovered, so added (+) and modified (~)
+         * devices are displayed right away. Services of other interfaces than
+         * the included ones are skipped.
+         *
+         * @param service the discovered service
+         */
+        private void diffService(IUbntService service) {
+            if (interfaces.isEmpty() || interfaces.contains(service.getInterface())) {
+                diff.onServiceLocated(service);
+            }
+        }
+
+        /**
+         * Displays the devices given by {@code -diff} that have not been
+         * discovered as removed (-), followed by a summary of the diff.
+         */
+        private void finishDiff() {
+            diff.finish();
+
+            String summary = String.format("%d added, %d modified, %d removed, %d unchanged",
+                                           diff.getAddedCount(), diff.getChangedCount(),
+                                           diff.getRemovedCount(), diff.getUnchangedCount());
+            logger.info("[CLI] Diff against " + diffPath + ": " + summary);
+            if (ndjson == null) {
+                System.out.println(summary);
+            }
+        }
+
+        /**
+         * Displays a single line for a monitor event. Services of other
+         * interfaces than the included ones are skipped.
+         *
+         * @param event   the event character ({@code +}, {@code ~} or {@code -})
+         * @param name    the event name used by {@code -format ndjson}
+         * @param service the service
+         */
+        private void displayEvent(char event, String name, IUbntService service) {
+            displayEvent(event, name, service, System.currentTimeMillis());
+        }
+
+        /**
+         * Displays a single line for a device event that happened at the
+         * given time. Services of other interfaces than the included ones are
+         * skipped.
+         *
+         * @param event   the event character
+         * @param name    the event name used by {@code -format ndjson}
+         * @param service the service
+         * @param time    the time of the event in milliseconds
+         */
+        private void displayEvent(char event, String name, IUbntService service, long time) {
+            if (!interfaces.isEmpty() && !interfaces.contains(service.getInterface())) {
+                return;
+            }
+
+            if (ndjson != null) {
+                try {
+                    ndjson.write(name, service, time);
+                } catch (IOException e) {
+                    logger.warning("[CLI] Could not write event: " + e.getMessage());
+                }
+                return;
+            }
+
+            String mac   = ServiceRegistry.formatMac(ServiceRegistry.macOf(service));
+            String model = service.getModelName();
+            if (model == null) {
+                model = "UbntService";
+            }
+            System.out.printf("%tT %c %s %s '%s' v%#05x@%s\n", time, event, mac,
+                              service.getSourceAddress() == null ? "-" : service.getSourceAddress().getHostAddress(),
+                              model, service.getPacketVersion(), service.getInterface());
+        }
+
         /**
          * Displays all encountered services using the provided CLI args.
          */
         private void displayServices() {
             Collection<IUbntService> stream;
             if (!interfaces.isEmpty()) {
-                stream = services.stream()
+                stream = services.toList().stream()
                         .filter(service -> interfaces.contains(service.getInterface()))
                         .collect(Collectors.toList());
             } else {
-                stream = new ArrayList<>(services);
+                stream = services.toList();
             }
 
             if (stream.isEmpty()) {
@@ -537,7 +1049,9 @@ public final class UbntDiscoveryTool {
             }
 
             logger.info("[CLI] Got "+stream.size()+" service(s) to display!");
-            if (!this.grouped) {
+            if (ndjson != null) {
+                stream.forEach(service -> displayEvent('+', "appeared", service));
+            } else if (!this.grouped) {
                 stream.forEach(this::displayService);
             } else {
                 Map<String, List<IUbntService>> serviceMap = new HashMap<>();
@@ -561,6 +1075,72 @@ public final class UbntDiscoveryTool {
 
         }
 
+        /**
+         * Displays a line with the last-seen time of every device known from
+         * previous runs, before the first query is sent.
+         */
+        private void displayKnownDevices() {
+            InventoryStore store = getInventory();
+            if (store == null) {
+                return;
+            }
+            for (IUbntService service : store.getKnownServices()) {
+                displayEvent('=', "known", service, store.getLastSeen(ServiceRegistry.macOf(service)));
+            }
+        }
+
+        /**
+         * Displays the counters of all servers and the parser metrics. The
+         * summary is printed to the error stream with {@code -format ndjson},
+         * so the output stays parsable.
+         */
+        private void displayStatistics() {
+            PrintStream out = ndjson != null ? System.err : System.out;
+            out.println("~".repeat(24) + " Statistics " + "~".repeat(24));
+            for (QueryServer server : getServers()) {
+                if (!(server instanceof IDiscoveryServer)) {
+                    continue;
+                }
+                IDiscoveryServer discoveryServer = (IDiscoveryServer) server;
+                out.printf("%s: suppressed=%d, firstResponse=%s, lastResponse=%s%n",
+                           server.getClass().getSimpleName(), discoveryServer.getSuppressedCount(),
+                           formatMillis(discoveryServer.getFirstResponseMillis()),
+                           formatMillis(discoveryServer.getLastResponseMillis()));
+                for (ChannelStatistics channel : discoveryServer.getChannelStatistics()) {
+                    out.printf("%13s (%s): %s%n", channel.getName(),
+                               channel.getInterface() == null ? "*" : channel.getInterface(), channel);
+                }
+                out.printf("%13s: %s%n", "total", discoveryServer.getTotalStatistics());
+            }
+
+            DiscoveryMetrics metrics = DiscoveryMetrics.getDefault();
+            out.printf("Parser: parsed=%d, failures=%d", metrics.getParseCount(), metrics.getParseFailures());
+            for (DiscoveryMetrics.ParseFailure reason : DiscoveryMetrics.ParseFailure.values()) {
+                out.printf(", %s=%d", reason.name().toLowerCase(Locale.ROOT), metrics.getFailureCount(reason));
+            }
+            out.println();
+            out.printf(Locale.ROOT, "Parse latency (us): mean=%.1f, p50=%.1f, p90=%.1f, p99=%.1f, p99.9=%.1f, max=%.1f%n",
+                       metrics.getParseLatencyMeanMicros(), metrics.getParseLatencyP50Micros(),
+                       metrics.getParseLatencyP90Micros(), metrics.getParseLatencyP99Micros(),
+                       metrics.getParseLatencyP999Micros(), metrics.getParseLatencyMaxMicros());
+            if (deviceMonitor != null) {
+                out.printf("Monitor: devices=%d, appeared=%d, changed=%d, disappeared=%d%n",
+                           deviceMonitor.getDeviceCount(), deviceMonitor.getAppearedCount(),
+                           deviceMonitor.getChangedCount(), deviceMonitor.getDisappearedCount());
+            }
+            out.flush();
+        }
+
+        /**
+         * Formats the given milliseconds of a response time.
+         *
+         * @param millis the milliseconds or {@code -1}
+         * @return the formatted time or {@code "-"}
+         */
+        private static String formatMillis(long millis) {
+            return millis < 0 ? "-" : millis + "ms";
+        }
+
         /**
          * Displays a discovered {@link IUbntService}.
          *
@@ -611,5 +1191,22 @@ public final class UbntDiscoveryTool {
                 return Level.WARNING;
             }
         }
+
+        /**
+         * Small class to parse the query mode.
+         */
+        private static final class QueryModeConverter implements IStringConverter<UbntDiscoveryServer.QueryMode> {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public UbntDiscoveryServer.QueryMode convert(String value) {
+                try {
+                    return UbntDiscoveryServer.QueryMode.of(value);
+                } catch (IllegalArgumentException e) {
+                    throw new ParameterException("Unknown query mode: " + value);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,213 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An {@link IDiscoveryListener} that hands all discovered services over to
+ * a bounded queue and notifies its delegate on a worker task running on
+ * {@link UbntExecutors#getDefault()}. A slow
+ * delegate therefore never blocks the receiving threads of a
+ * {@link QueryServer}.
+ * <p>
+ * If the queue is full, the service is dropped, counted and released, as
+ * are all services still queued when this listener is closed. The
+ * delegate owns every service it is notified about.
+ *
+ * @see QueryServer#addListener(IDiscoveryListener, int)
+ */
+public class AsyncDiscoveryListener implements IDiscoveryListener, Closeable {
+
+    /**
+     * The logger of this class.
+     */
+    private static final Logger logger = Logger.getLogger(AsyncDiscoveryListener.class.getSimpleName());
+
+    /**
+     * The maximum amount of milliseconds the worker waits for a service
+     * before re-checking whether this listener has been closed.
+     */
+    private static final long POLL_TIMEOUT = 250L;
+
+    /**
+     * The listener that will be notified on the worker thread.
+     */
+    private final IDiscoveryListener delegate;
+
+    /**
+     * The services that have not been delivered yet.
+     */
+    private final BlockingQueue<IUbntService> queue;
+
+    /**
+     * The number of services dropped because the queue was full.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * The number of services delivered to the delegate.
+     */
+    private final LongAdder delivered = new LongAdder();
+
+    /**
+     * The number of queued services and the service being delivered.
+     */
+    private final AtomicInteger undelivered = new AtomicInteger();
+
+    /**
+     * Whether this listener has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new {@link AsyncDiscoveryListener} and starts its worker
+     * task.
+     *
+     * @param delegate the listener to notify
+     * @param capacity the maximum amount of queued services
+     */
+    public AsyncDiscoveryListener(IDiscoveryListener delegate, int capacity) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate");
+        }
+        this.delegate = delegate;
+        this.queue    = new ArrayBlockingQueue<>(capacity);
+        UbntExecutors.getDefault().execute(this::deliver);
+    }
+
+    /**
+     * Queues the given service without blocking. The service is dropped if
+     * the queue is full or this listener has been closed.
+     *
+     * @param service the new service
+     */
+    @Override
+    public void onServiceLocated(IUbntService service) {
+        undelivered.incrementAndGet();
+        if (closed || !queue.offer(service)) {
+            undelivered.decrementAndGet();
+            dropped.increment();
+            service.release();
+        }
+    }
+
+    /**
+     * Notifies the delegate about all queued services until this listener
+     * has been closed. The worker is never interrupted by {@link #close()},
+     * so an interrupt can't leak into blocking I/O of the delegate; it
+     * polls the queue with a timeout instead.
+     */
+    private void deliver() {
+        while (!closed) {
+            IUbntService service;
+            try {
+                service = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // The executor is shutting down
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (service == null) {
+                continue;
+            }
+            if (closed) {
+                undelivered.decrementAndGet();
+                service.release();
+                return;
+            }
+
+            try {
+                delegate.onServiceLocated(service);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "[ADL@" + Thread.currentThread().getName() + "]::Deliver("
+                        + e.getMessage() + ")", e);
+            } finally {
+                undelivered.decrementAndGet();
+            }
+            delivered.increment();
+        }
+    }
+
+    /**
+     * Returns the listener that is notified on the worker thread.
+     *
+     * @return the delegate
+     */
+    public IDiscoveryListener getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the number of services dropped because the queue was full.
+     *
+     * @return the dropped service count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of services delivered to the delegate.
+     *
+     * @return the delivered service count
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * Returns the number of queued services.
+     *
+     * @return the queue size
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Waits until all queued services have been delivered, e.g. before the
+     * delegate is closed.
+     *
+     * @param timeoutMillis the maximum amount of milliseconds to wait
+     * @return {@code true} if all services have been delivered
+     */
+    public boolean awaitDelivery(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (undelivered.get() > 0 && !closed && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return undelivered.get() == 0;
+    }
+
+    /**
+     * Stops the worker task within {@value #POLL_TIMEOUT} milliseconds. A
+     * service that is being delivered is not interrupted; services that
+     * have not been delivered yet are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        IUbntService service;
+        while ((service = queue.poll()) != null) {
+            undelivered.decrementAndGet();
+            service.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncDiscoveryListener{delegate=" + delegate + ", queued=" + queue.size()
+                + ", delivered=" + delivered.sum() + ", dropped=" + dropped.sum() + "}";
+    }
+}
@@ -6,6 +6,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -36,10 +37,23 @@ public abstract class BaseService implements IUbntService {
             Collections.synchronizedMap(new HashMap<>());
 
     /**
-     * A simple list storing all parsed records.
+     * The maximum amount of slots in {@link #recordIndex}; TLV types are
+     * encoded as a single byte.
+     */
+    private static final int MAX_TYPES = 256;
+
+    /**
+     * A simple list storing all parsed records in insertion order.
      */
     protected List<Record> recordList;
 
+    /**
+     * The first record of every type indexed by the unsigned type byte.
+     * This array is created on the first call to {@link #add(Record)} and
+     * only grows up to the highest type stored.
+     */
+    private Record[] recordIndex;
+
     /**
      * The device's ip-address
      */
@@ -55,11 +69,22 @@ public abstract class BaseService implements IUbntService {
      */
     private int packetVersion;
 
+    /**
+     * The pooled buffer all records reference, or {@code null} if this
+     * service does not own a pooled buffer.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The pool {@link #buffer} has been leased from.
+     */
+    private UbntBufferPool pool;
+
     /**
      * Creates a new service with zero records.
      */
     public BaseService() {
-        recordList = new LinkedList<>();
+        recordList = new ArrayList<>(20);
     }
 
     /**
@@ -147,6 +172,79 @@ public abstract class BaseService implements IUbntService {
     public void add(Record record) {
         if (record != null) {
             recordList.add(record);
+
+            int slot = record.getType() & 0xFF;
+            if (recordIndex == null || slot >= recordIndex.length) {
+                int length = Math.min(MAX_TYPES, Math.max(32, Integer.highestOneBit(slot) << 1));
+                recordIndex = recordIndex == null
+                        ? new Record[length]
+                        : Arrays.copyOf(recordIndex, length);
+            }
+            // The first record of a type wins, like a linear lookup would
+            if (recordIndex[slot] == null) {
+                recordIndex[slot] = record;
+            }
+        }
+    }
+
+    /**
+     * Tries to resolve a {@link Record} with the given type. If there are
+     * multiple records with the same type, the first one will be returned.
+     *
+     * @param type the type too lookup
+     * @return {@code null} if no {@link Record} with the provided type
+     *         has been found; the {@code Record} otherwise.
+     */
+    @Override
+    public Record get(int type) {
+        Record[] index = recordIndex;
+        int      slot  = type & 0xFF;
+        if (index == null || slot >= index.length) {
+            return null;
+        }
+
+        Record record = index[slot];
+        if (record == null || record.getType() == type) {
+            return record;
+        }
+        // Types that only share the lower byte, e.g. -1 and 255
+        return IUbntService.super.get(type);
+    }
+
+    /**
+     * Hands the pooled buffer this service has been parsed from over to
+     * this service. The buffer is kept until this service is released or
+     * detached.
+     *
+     * @param pool the pool the buffer was leased from
+     * @param buffer the buffer referenced by this service's records
+     */
+    @Override
+    public synchronized void attach(UbntBufferPool pool, ByteBuffer buffer) {
+        release();
+        this.pool   = pool;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Copies the raw bytes of all records out of the pooled buffer and
+     * returns the buffer to its pool.
+     */
+    @Override
+    public synchronized void detach() {
+        IUbntService.super.detach();
+        release();
+    }
+
+    /**
+     * Returns the pooled buffer (if any) to its pool.
+     */
+    @Override
+    public synchronized void release() {
+        if (buffer != null) {
+            pool.release(buffer);
+            buffer = null;
+            pool   = null;
         }
     }
 
@@ -178,7 +276,30 @@ public abstract class BaseService implements IUbntService {
      */
     @Override
     public boolean remove(Record record) {
-        return recordList.remove(record);
+        if (recordList.remove(record)) {
+            unindex(record);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given record from {@link #recordIndex} and indexes the
+     * next record of the same type instead (if any).
+     *
+     * @param record the removed record
+     */
+    private void unindex(Record record) {
+        int slot = record.getType() & 0xFF;
+        if (recordIndex != null && slot < recordIndex.length && recordIndex[slot] == record) {
+            recordIndex[slot] = null;
+            for (Record next : recordList) {
+                if ((next.getType() & 0xFF) == slot) {
+                    recordIndex[slot] = next;
+                    break;
+                }
+            }
+        }
     }
 
     /**
@@ -225,6 +346,25 @@ public abstract class BaseService implements IUbntService {
      */
     @Override
     public Iterator<Record> iterator() {
-        return recordList.iterator();
+        final Iterator<Record> iterator = recordList.iterator();
+        return new Iterator<>() {
+            private Record current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Record next() {
+                return current = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                unindex(current);
+            }
+        };
     }
 }
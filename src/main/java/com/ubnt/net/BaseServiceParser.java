@@ -3,11 +3,17 @@ package com.ubnt.net; //@date 07.12.2022
 import com.ubnt.net.IUbntService.Record;
 import com.ubnt.net.IUbntService.RecordParser;
 
+import java.nio.ByteBuffer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Abstract implementation of an {@link IUbntService.Parser}.
+ * <p>
+ * In lazy mode, records only store their type, offset and length, and the
+ * payload is decoded on the first {@link Record#getPayload()} call. Lazy
+ * mode is enabled by default if the system property
+ * {@code "ubnt.parser.lazy"} is set to {@code true}.
  */
 public abstract class BaseServiceParser extends IUbntService.Parser {
 
@@ -28,14 +34,39 @@ public abstract class BaseServiceParser extends IUbntService.Parser {
 
     private final RecordParser defaultParser;
 
+    /**
+     * Whether decoding record payloads should be deferred.
+     */
+    private volatile boolean lazy;
+
     public BaseServiceParser(IUbntService.Factory factory) {
         this.factory = factory;
         this.defaultParser = new UbntIOUtilities.HexStringRecordParser();
+        this.lazy = System.getProperty("ubnt.parser.lazy", "false").equalsIgnoreCase("true");
+    }
+
+    /**
+     * @return whether decoding record payloads is deferred
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Sets whether decoding record payloads should be deferred until they
+     * are requested.
+     *
+     * @param lazy {@code true} to enable lazy mode
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
     }
 
     /**
      * Parses the given buffer using all defined {@link RecordParser}
-     * definitions stored in {@link Record#parsers}.
+     * definitions stored in {@link Record#parsers}. The data is wrapped
+     * into a {@link ByteBuffer} without copying it and validated by
+     * {@link #parse(ByteBuffer)}.
      * <p>
      * The returned {@code IUbntService} could be {@code null} if unexpected
      * errors occur.
@@ -46,42 +77,76 @@ public abstract class BaseServiceParser extends IUbntService.Parser {
      */
     @Override
     public IUbntService parse(byte[] data, int length) {
-        vXLogger.info("[ASP]::Parse(Parsing packet; " + length + " bytes)");
-        byte cmd = data[1];
+        return parse(ByteBuffer.wrap(data, 0, length));
+    }
+
+    /**
+     * Parses the remaining bytes of the given buffer using all defined
+     * {@link RecordParser} definitions stored in {@link Record#parsers}.
+     * <p>
+     * All headers are read with absolute operations, so neither the
+     * position nor the limit of the buffer will be modified. The created
+     * {@link Record}s reference the given buffer instead of a copy.
+     *
+     * @param buffer the raw data, possibly a direct buffer
+     * @return an {@link IUbntService} with all parsed {@link Record}s or
+     *         {@code null} if the packet is malformed.
+     */
+    @Override
+    public IUbntService parse(ByteBuffer buffer) {
+        final int offset = buffer.position();
+        final int length = buffer.remaining();
+        vXLogger.finer(() -> "[ASP]::Parse(Parsing buffer; " + length + " bytes)");
+        if (length < 4) {
+            vXLogger.fine("[ASP]::Parse(Buffer too small, discarding...)");
+            DiscoveryMetrics.getDefault().parseFailed(DiscoveryMetrics.ParseFailure.TOO_SHORT);
+            return null;
+        }
 
-        byte[] sizeBuf = new byte[2];
-        System.arraycopy(data, 2, sizeBuf, 0, 2);
-        int dataLength = UbntIOUtilities.parseInt(sizeBuf).intValue();
-        vXLogger.info("[ASP]::Parse(dataLength=" + dataLength + ")");
+        byte cmd = buffer.get(offset + 1);
+        int dataLength = UbntIOUtilities.readUnsignedShort(buffer, offset + 2);
+        vXLogger.finer(() -> "[ASP]::Parse(dataLength=" + dataLength + ")");
 
         int realLength = dataLength + 1 + 1 + 2;
-        int index      = 4;
         if (realLength != length) {
-            vXLogger.warning("[ASP]::Parse(Packet has invalid data length, discarding...)");
+            vXLogger.fine("[ASP]::Parse(Packet has invalid data length, discarding...)");
+            DiscoveryMetrics.getDefault().parseFailed(DiscoveryMetrics.ParseFailure.INVALID_LENGTH);
             return null;
         }
 
-        IUbntService service = factory.createService();
-        service.setPacketVersion(data[0]);
-        while (index < realLength) {
-            int type = data[index++];
-            System.arraycopy(data, index, sizeBuf, 0, 2);
+        final int end   = offset + realLength;
+        int       index = offset + 4;
 
-            int size = UbntIOUtilities.parseInt(sizeBuf).intValue();
+        IUbntService service = factory.createService();
+        service.setPacketVersion(buffer.get(offset));
+        while (index < end) {
+            if (index + 3 > end) {
+                vXLogger.fine("[ASP]::Parse(Truncated record header)");
+                DiscoveryMetrics.getDefault().parseFailed(DiscoveryMetrics.ParseFailure.TRUNCATED_HEADER);
+                return null;
+            }
+            int type = buffer.get(index++);
+            int size = UbntIOUtilities.readUnsignedShort(buffer, index);
             index += 2;
-            if (index + size > realLength) {
-                vXLogger.warning("[ASP]::Parse(Invalid record length; type=" + type + ")");
+            if (index + size > end) {
+                vXLogger.fine(() -> "[ASP]::Parse(Invalid record length; type=" + type + ")");
+                DiscoveryMetrics.getDefault().parseFailed(DiscoveryMetrics.ParseFailure.INVALID_RECORD_LENGTH);
                 return null;
             }
-            Record record = new Record(type, size, index, data);
-
             RecordParser parser = Record.getParser(type);
-            if (parser != null) {
-                Object o = parser.parseData(data, index, size);
-                record.setPayload(o);
+            if (parser == null) {
+                parser = defaultParser;
+            }
+            if (size < parser.getMinimumLength()) {
+                vXLogger.fine(() -> "[ASP]::Parse(Record too short; type=" + type + ", size=" + size + ")");
+                DiscoveryMetrics.getDefault().parseFailed(DiscoveryMetrics.ParseFailure.INVALID_RECORD_LENGTH);
+                return null;
             }
-            else {
-                record.setPayload(defaultParser.parseData(data, index, size));
+            Record record = Record.of(type, size, index, buffer);
+            if (lazy) {
+                record.defer(parser);
+            } else {
+                record.setPayload(parser.parseData(buffer, index, size));
             }
             service.add(record);
             index += size;
@@ -91,7 +156,7 @@ public abstract class BaseServiceParser extends IUbntService.Parser {
             handleCommandCompletion(cmd, service);
         }
 
-        vXLogger.info("[ASP]::Parse(success)");
+        vXLogger.finer("[ASP]::Parse(success)");
         return service;
     }
 
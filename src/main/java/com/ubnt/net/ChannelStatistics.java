@@ -0,0 +1,180 @@
+package com.ubnt.net; //@date 16.10.2026
+
+/**
+ * A snapshot of the counters of a single channel of an
+ * {@link IDiscoveryServer}. All counters are totals since the channel has
+ * been bound.
+ *
+ * @see IDiscoveryServer#getChannelStatistics()
+ */
+public final class ChannelStatistics {
+
+    /**
+     * The amount of counters of a channel.
+     */
+    static final int COUNTERS = 9;
+
+    /**
+     * The name of the channel used in log output.
+     */
+    private final String name;
+
+    /**
+     * The network interface of the channel or {@code null} for the wildcard
+     * channel.
+     */
+    private final String networkInterface;
+
+    /**
+     * The amount of received datagrams.
+     */
+    private final long received;
+
+    /**
+     * The amount of received query packets.
+     */
+    private final long queries;
+
+    /**
+     * The amount of responses another channel has received first.
+     */
+    private final long duplicates;
+
+    /**
+     * The amount of datagrams dropped by the {@link DuplicateFilter}.
+     */
+    private final long filtered;
+
+    /**
+     * The amount of parsed services.
+     */
+    private final long parsed;
+
+    /**
+     * The amount of datagrams that could not be parsed.
+     */
+    private final long malformed;
+
+    /**
+     * The amount of sent packets.
+     */
+    private final long sent;
+
+    /**
+     * The amount of packets that could not be sent.
+     */
+    private final long sendErrors;
+
+    /**
+     * The amount of received bytes.
+     */
+    private final long bytes;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param name             the channel name
+     * @param networkInterface the network interface or {@code null}
+     * @param counters         the counters in declaration order
+     */
+    ChannelStatistics(String name, String networkInterface, long... counters) {
+        this.name             = name;
+        this.networkInterface = networkInterface;
+        this.received         = counters[0];
+        this.queries          = counters[1];
+        this.duplicates       = counters[2];
+        this.filtered         = counters[3];
+        this.parsed           = counters[4];
+        this.malformed        = counters[5];
+        this.sent             = counters[6];
+        this.sendErrors       = counters[7];
+        this.bytes            = counters[8];
+    }
+
+    /**
+     * @return the name of the channel used in log output
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the network interface or {@code null} for the wildcard channel
+     */
+    public String getInterface() {
+        return networkInterface;
+    }
+
+    /**
+     * @return the amount of received datagrams
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * @return the amount of received query packets
+     */
+    public long getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return the amount of responses another channel has received first
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return the amount of datagrams dropped by the {@link DuplicateFilter}
+     */
+    public long getFiltered() {
+        return filtered;
+    }
+
+    /**
+     * @return the amount of parsed services
+     */
+    public long getParsed() {
+        return parsed;
+    }
+
+    /**
+     * @return the amount of datagrams that could not be parsed
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return the amount of sent packets
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return the amount of packets that could not be sent
+     */
+    public long getSendErrors() {
+        return sendErrors;
+    }
+
+    /**
+     * @return the amount of received bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "received=" + received + ", queries=" + queries + ", duplicates=" + duplicates
+                + ", filtered=" + filtered + ", parsed=" + parsed + ", malformed=" + malformed
+                + ", sent=" + sent + ", sendErrors=" + sendErrors + ", bytes=" + bytes;
+    }
+}
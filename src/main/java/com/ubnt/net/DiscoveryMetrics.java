@@ -0,0 +1,280 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The process-wide parser metrics: why datagrams could not be parsed and
+ * how long parsing took. The counters of the receiving channels are kept by
+ * every {@link IDiscoveryServer} itself (see
+ * {@link IDiscoveryServer#getChannelStatistics()}).
+ * <p>
+ * All metrics can be read with JMX. Unless the system property
+ * {@code "ubnt.jmx.enabled"} is set to {@code false}, the default instance
+ * is registered with the platform {@link MBeanServer} as
+ * {@code com.ubnt:type=DiscoveryMetrics} together with every server created
+ * by the tool (see {@link #register(Object, String, String)}).
+ */
+public final class DiscoveryMetrics implements DiscoveryMetricsMXBean {
+
+    /**
+     * The logger of this class.
+     */
+    private static final Logger logger = Logger.getLogger(DiscoveryMetrics.class.getSimpleName());
+
+    /**
+     * The domain of all registered MBeans.
+     */
+    public static final String DOMAIN = "com.ubnt";
+
+    /**
+     * The metrics of this process.
+     */
+    private static final DiscoveryMetrics DEFAULT = new DiscoveryMetrics();
+
+    /**
+     * The reasons why a datagram could not be parsed.
+     */
+    public enum ParseFailure {
+        /**
+         * The datagram is shorter than a packet header.
+         */
+        TOO_SHORT,
+
+        /**
+         * The length of the datagram does not match the length in its header.
+         */
+        INVALID_LENGTH,
+
+        /**
+         * The datagram ends within a record header.
+         */
+        TRUNCATED_HEADER,
+
+        /**
+         * A record is longer than the rest of the datagram.
+         */
+        INVALID_RECORD_LENGTH,
+
+        /**
+         * No parser is registered for the packet version.
+         */
+        UNKNOWN_VERSION
+    }
+
+    /**
+     * The failure counters in the order of {@link ParseFailure}.
+     */
+    private final LongAdder[] failures = new LongAdder[ParseFailure.values().length];
+
+    /**
+     * The time needed to parse a datagram, including failed attempts.
+     */
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+
+    /**
+     * Creates new empty metrics.
+     */
+    public DiscoveryMetrics() {
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return the metrics of this process
+     */
+    public static DiscoveryMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers the given MBean as {@code com.ubnt:type=<type>[,name=<name>]}
+     * with the platform {@link MBeanServer}, replacing an MBean registered
+     * with the same name. Nothing is registered if the system property
+     * {@code "ubnt.jmx.enabled"} is {@code false}.
+     *
+     * @param mbean the MXBean
+     * @param type  the type key
+     * @param name  the name key or {@code null}
+     * @return whether the MBean has been registered
+     */
+    public static boolean register(Object mbean, String type, String name) {
+        if (System.getProperty("ubnt.jmx.enabled", "true").equalsIgnoreCase("false")) {
+            return false;
+        }
+        try {
+            MBeanServer server     = ManagementFactory.getPlatformMBeanServer();
+            ObjectName  objectName = new ObjectName(DOMAIN + ":type=" + type
+                                                            + (name == null ? "" : ",name=" + ObjectName.quote(name)));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+            logger.fine(() -> "[DM]::Register(" + objectName + ")");
+            return true;
+        } catch (JMException | SecurityException e) {
+            logger.log(Level.WARNING, "[DM]::Register(type=" + type + ", " + e.getMessage() + ")", e);
+            return false;
+        }
+    }
+
+    /**
+     * Counts a datagram that could not be parsed.
+     *
+     * @param reason the reason
+     */
+    public void parseFailed(ParseFailure reason) {
+        failures[reason.ordinal()].increment();
+    }
+
+    /**
+     * Records the time needed to parse a datagram.
+     *
+     * @param nanos the parse time in nanoseconds
+     */
+    public void parsed(long nanos) {
+        parseLatency.record(nanos);
+    }
+
+    /**
+     * Returns how often a datagram could not be parsed for the given reason.
+     *
+     * @param reason the reason
+     * @return the failure count
+     */
+    public long getFailureCount(ParseFailure reason) {
+        return failures[reason.ordinal()].sum();
+    }
+
+    /**
+     * @return the histogram of the parse times in nanoseconds
+     */
+    public LatencyHistogram getParseLatency() {
+        return parseLatency;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getParseCount() {
+        return parseLatency.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getParseFailures() {
+        long sum = 0;
+        for (LongAdder failure : failures) {
+            sum += failure.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTooShortFailures() {
+        return getFailureCount(ParseFailure.TOO_SHORT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getInvalidLengthFailures() {
+        return getFailureCount(ParseFailure.INVALID_LENGTH);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTruncatedHeaderFailures() {
+        return getFailureCount(ParseFailure.TRUNCATED_HEADER);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getInvalidRecordLengthFailures() {
+        return getFailureCount(ParseFailure.INVALID_RECORD_LENGTH);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getUnknownVersionDrops() {
+        return getFailureCount(ParseFailure.UNKNOWN_VERSION);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getParseLatencyMeanMicros() {
+        return parseLatency.getMean() / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getParseLatencyP50Micros() {
+        return parseLatency.getPercentile(50) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getParseLatencyP90Micros() {
+        return parseLatency.getPercentile(90) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getParseLatencyP99Micros() {
+        return parseLatency.getPercentile(99) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getParseLatencyP999Micros() {
+        return parseLatency.getPercentile(99.9) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getParseLatencyMaxMicros() {
+        return parseLatency.getMax() / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        for (LongAdder failure : failures) {
+            failure.reset();
+        }
+        parseLatency.reset();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ubnt.net; //@date 16.10.2026
+
+/**
+ * The management interface of {@link DiscoveryMetrics}, registered as
+ * {@code com.ubnt:type=DiscoveryMetrics}.
+ */
+public interface DiscoveryMetricsMXBean {
+
+    /**
+     * @return the amount of datagrams handed to a parser
+     */
+    long getParseCount();
+
+    /**
+     * @return the amount of datagrams that could not be parsed for any reason
+     */
+    long getParseFailures();
+
+    /**
+     * @return the amount of datagrams shorter than a packet header
+     */
+    long getTooShortFailures();
+
+    /**
+     * @return the amount of datagrams whose length does not match the header
+     */
+    long getInvalidLengthFailures();
+
+    /**
+     * @return the amount of datagrams ending within a record header
+     */
+    long getTruncatedHeaderFailures();
+
+    /**
+     * @return the amount of datagrams with a record exceeding the packet
+     */
+    long getInvalidRecordLengthFailures();
+
+    /**
+     * @return the amount of datagrams dropped because no parser is
+     *         registered for their version
+     */
+    long getUnknownVersionDrops();
+
+    /**
+     * @return the mean parse time in microseconds
+     */
+    double getParseLatencyMeanMicros();
+
+    /**
+     * @return the median parse time in microseconds
+     */
+    double getParseLatencyP50Micros();
+
+    /**
+     * @return the 90th percentile of the parse time in microseconds
+     */
+    double getParseLatencyP90Micros();
+
+    /**
+     * @return the 99th percentile of the parse time in microseconds
+     */
+    double getParseLatencyP99Micros();
+
+    /**
+     * @return the 99.9th percentile of the parse time in microseconds
+     */
+    double getParseLatencyP999Micros();
+
+    /**
+     * @return the highest parse time in microseconds
+     */
+    double getParseLatencyMaxMicros();
+
+    /**
+     * Resets all counters and the parse latency histogram.
+     */
+    void reset();
+}
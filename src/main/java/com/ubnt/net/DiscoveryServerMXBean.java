@@ -0,0 +1,44 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.util.List;
+
+/**
+ * The management interface of an {@link IDiscoveryServer}, registered as
+ * {@code com.ubnt:type=DiscoveryServer,name=<class name>}. The
+ * {@link ChannelStatistics} are mapped to composite data.
+ */
+public interface DiscoveryServerMXBean {
+
+    /**
+     * @return the counters of every bound channel
+     */
+    List<ChannelStatistics> getChannelStatistics();
+
+    /**
+     * @return the sum of the counters of all channels
+     */
+    ChannelStatistics getTotalStatistics();
+
+    /**
+     * @return the amount of responses that were not parsed, because another
+     *         channel received them first
+     */
+    long getSuppressedCount();
+
+    /**
+     * @return the milliseconds between the start of the last scan and its
+     *         first response or {@code -1} if there was none
+     */
+    long getFirstResponseMillis();
+
+    /**
+     * @return the milliseconds between the start of the last scan and its
+     *         latest response or {@code -1} if there was none
+     */
+    long getLastResponseMillis();
+
+    /**
+     * @return whether this server has finished
+     */
+    boolean isFinished();
+}
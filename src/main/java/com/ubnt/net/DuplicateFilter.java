@@ -0,0 +1,243 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops exact repeats of a received datagram within a time window before
+ * they are parsed. Devices answer every query version on every address they
+ * are queried on, and the same response may reach several channels, so
+ * without this filter the same payload is parsed and dispatched several
+ * times per scan.
+ * <p>
+ * Every datagram is reduced to a 64-bit hash of its raw bytes. The hashes
+ * are kept in a fixed-size open-addressing table together with the time
+ * they last passed, so filtering doesn't allocate. Expired entries are
+ * overwritten; if all probed slots are in use, the oldest one is replaced.
+ * The uptime of a response is given in seconds, so copies of the same
+ * response within a scan are identical and are dropped; responses to later
+ * scans differ once the uptime or sequence number has changed.
+ *
+ * @see IDiscoveryServer#setDuplicateFilter(DuplicateFilter)
+ */
+public final class DuplicateFilter {
+
+    /**
+     * The default window in milliseconds.
+     */
+    public static final long DEFAULT_WINDOW = 2000L;
+
+    /**
+     * The default amount of table slots.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The amount of slots probed for a hash.
+     */
+    private static final int PROBES = 8;
+
+    /**
+     * The hashes of all stored datagrams, {@code 0} marks an empty slot.
+     */
+    private final long[] hashes;
+
+    /**
+     * The time in nanoseconds each hash has last passed this filter.
+     */
+    private final long[] times;
+
+    /**
+     * The mask to map a hash to a slot.
+     */
+    private final int mask;
+
+    /**
+     * The window in nanoseconds.
+     */
+    private final long windowNanos;
+
+    /**
+     * The number of dropped datagrams.
+     */
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * The number of passed datagrams.
+     */
+    private final LongAdder passed = new LongAdder();
+
+    /**
+     * Creates a new {@link DuplicateFilter} with the default capacity.
+     *
+     * @param windowMillis the milliseconds in which a repeat is dropped
+     */
+    public DuplicateFilter(long windowMillis) {
+        this(windowMillis, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@link DuplicateFilter}.
+     *
+     * @param windowMillis the milliseconds in which a repeat is dropped
+     * @param capacity     the amount of table slots, rounded up to a power
+     *                     of two
+     */
+    public DuplicateFilter(long windowMillis, int capacity) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+        if (capacity <= 0 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(PROBES, capacity - 1) << 1);
+        this.hashes      = new long[size];
+        this.times       = new long[size];
+        this.mask        = size - 1;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * Returns whether the given bytes have been seen within the window and
+     * records them otherwise.
+     *
+     * @param data   the datagram
+     * @param offset the offset of the datagram
+     * @param length the length of the datagram
+     * @return {@code true} if the datagram should be dropped
+     */
+    public boolean isDuplicate(byte[] data, int offset, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (data[i] & 0xFF)) * 0x100000001b3L;
+        }
+        return check(hash, length);
+    }
+
+    /**
+     * Returns whether the remaining bytes of the given buffer have been seen
+     * within the window and records them otherwise. The position of the
+     * buffer is not changed.
+     *
+     * @param buffer the datagram
+     * @return {@code true} if the datagram should be dropped
+     */
+    public boolean isDuplicate(ByteBuffer buffer) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            hash = (hash ^ (buffer.get(i) & 0xFF)) * 0x100000001b3L;
+        }
+        return check(hash, buffer.remaining());
+    }
+
+    /**
+     * Looks up the given hash and stores it if it is not present.
+     *
+     * @param hash   the FNV-1a hash of the datagram
+     * @param length the length of the datagram
+     * @return {@code true} if the hash has been seen within the window
+     */
+    private boolean check(long hash, int length) {
+        // Mixes in the length and spreads the bits for the slot index
+        hash ^= (long) length << 48;
+        hash ^= hash >>> 29;
+        if (hash == 0) {
+            hash = 1;
+        }
+
+        long now = System.nanoTime();
+        synchronized (this) {
+            int index  = (int) hash & mask;
+            int victim = -1;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (index + i) & mask;
+                if (hashes[slot] == hash) {
+                    // The window starts with the copy that passed, so a
+                    // steady stream of repeats still passes once per window.
+                    boolean duplicate = now - times[slot] < windowNanos;
+                    if (!duplicate) {
+                        times[slot] = now;
+                    }
+                    count(duplicate);
+                    return duplicate;
+                }
+                // The first free slot is used, otherwise the oldest one. A
+                // later slot may still hold this hash, so all are probed.
+                if (victim < 0 || !isFree(victim, now)
+                        && (isFree(slot, now) || times[slot] - times[victim] < 0)) {
+                    victim = slot;
+                }
+            }
+            hashes[victim] = hash;
+            times[victim]  = now;
+        }
+        count(false);
+        return false;
+    }
+
+    /**
+     * Returns whether the given slot is empty or its entry has expired.
+     *
+     * @param slot the slot index
+     * @param now  the current time in nanoseconds
+     * @return {@code true} if the slot can be reused
+     */
+    private boolean isFree(int slot, long now) {
+        return hashes[slot] == 0 || now - times[slot] >= windowNanos;
+    }
+
+    /**
+     * Updates the counters.
+     *
+     * @param duplicate whether a datagram has been dropped
+     */
+    private void count(boolean duplicate) {
+        if (duplicate) {
+            suppressed.increment();
+        } else {
+            passed.increment();
+        }
+    }
+
+    /**
+     * Returns the number of dropped datagrams.
+     *
+     * @return the suppressed datagram count
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Returns the number of datagrams that passed this filter.
+     *
+     * @return the passed datagram count
+     */
+    public long getPassedCount() {
+        return passed.sum();
+    }
+
+    /**
+     * Returns the window of this filter.
+     *
+     * @return the window in milliseconds
+     */
+    public long getWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(windowNanos);
+    }
+
+    /**
+     * Forgets all recorded datagrams.
+     */
+    public synchronized void clear() {
+        Arrays.fill(hashes, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return "DuplicateFilter{window=" + getWindowMillis() + "ms, slots=" + hashes.length
+                + ", passed=" + passed.sum() + ", suppressed=" + suppressed.sum() + "}";
+    }
+}
@@ -10,7 +10,9 @@ import java.util.EventListener;
 public interface IDiscoveryListener extends EventListener {
 
     /**
-     * Invoked when a new service has been discovered.
+     * Invoked when a new service has been discovered. The listener owns the
+     * given service: it has to call {@link IUbntService#release()} once it
+     * does not keep the service any longer (see {@link QueryServer}).
      *
      * @param service the new service
      */
@@ -2,9 +2,18 @@ package com.ubnt.net; //@date 06.12.2022
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,13 +27,46 @@ import java.util.logging.Logger;
  * the system property {@code "ubnt.ipv6.enabled"} to {@code true}, this
  * server will also create IPv6 sockets.
  * <p>
- * By default, logging is enabled and the {@code Logger}'s level is set to
- * {@link Level#ALL}. All listening operations will be executed on an external
- * thread within an {@link Executors#newFixedThreadPool(int)}.
+ * Received and sent packets are not logged one by one above
+ * {@link Level#FINE}; every channel counts them instead and the counters of
+ * the previous scan are logged once per channel when the next scan starts
+ * or the server finishes (see {@link #getChannelStatistics()}). All
+ * messages on the receiving path are only built if their level is enabled.
+ * All listening operations will be executed on the executor provided by
+ * {@link UbntExecutors#getDefault()}, one task per channel. Running this
+ * server again while its channels are still served does not start
+ * additional tasks.
+ * <p>
+ * Multicast queries are only sent on channels bound to a network interface
+ * if there are any, because the wildcard channel would repeat them on the
+ * default interface. The wildcard channel still receives the responses, so
+ * during such a scan (i.e. since the last {@link #sendAll()}) responses
+ * that reach more than one channel are only parsed on the channel that
+ * received them first. If that is the wildcard channel, a copy received
+ * on an interface-bound channel is parsed as well, so the kept service
+ * carries the interface name. Broadcast scans are left to the
+ * {@link DuplicateFilter}.
+ * <p>
+ * Exact repeats of a datagram within {@code "ubnt.dedup.window"}
+ * milliseconds (default {@value DuplicateFilter#DEFAULT_WINDOW}, {@code 0}
+ * disables the filter) are dropped by a {@link DuplicateFilter} before they
+ * are parsed. The interface-bound copy that replaces a wildcard copy is
+ * never passed to the filter, because it repeats the wildcard copy byte by
+ * byte.
+ * <p>
+ * If the system property {@code "ubnt.nio.enabled"} is set to {@code true},
+ * the server binds non-blocking {@link DatagramChannel}s instead and drives
+ * all of them with a single {@link Selector}. In that mode only one thread
+ * is used for receiving, no matter how many interfaces are bound.
+ * <p>
+ * The counters of all channels, the time from the start of a scan to its
+ * first and latest response and the parse times (see
+ * {@link DiscoveryMetrics}) can be read with JMX through
+ * {@link DiscoveryServerMXBean}.
  *
  * @see QueryServer
  */
-public abstract class IDiscoveryServer extends QueryServer {
+public abstract class IDiscoveryServer extends QueryServer implements DiscoveryServerMXBean {
 
     /**
      * The logger for all {@link IDiscoveryServer} objects.
@@ -32,9 +74,40 @@ public abstract class IDiscoveryServer extends QueryServer {
     public static final Logger idsLogger =
             Logger.getLogger(IDiscoveryServer.class.getSimpleName());
 
-    static {
-        idsLogger.setLevel(Level.ALL);
-    }
+    /**
+     * The maximum amount of milliseconds the selector thread blocks before
+     * re-checking whether this server has finished.
+     */
+    private static final long SELECT_TIMEOUT = 500L;
+
+    /**
+     * Whether all channels should be driven by a single {@link Selector}
+     * instead of one blocking thread per channel.
+     */
+    protected final boolean selectorEnabled;
+
+    /**
+     * The pool providing one receive buffer per packet. Buffers are handed
+     * over to the parsed services and returned once a service is released.
+     */
+    protected final UbntBufferPool bufferPool;
+
+    /**
+     * The selector used while running in selector mode. This field is
+     * {@code null} if this server is not running or uses blocking sockets.
+     */
+    private volatile Selector selector;
+
+    /**
+     * Whether the selector task is running.
+     */
+    private final AtomicBoolean selecting = new AtomicBoolean();
+
+    /**
+     * The amount of received datagrams that are being parsed or dispatched
+     * at the moment.
+     */
+    private final AtomicInteger receiving = new AtomicInteger();
 
     /**
      * A simple {@link List} object storing all {@link DatagramPacket}s that
@@ -47,6 +120,60 @@ public abstract class IDiscoveryServer extends QueryServer {
      */
     protected final List<IDiscoveryChannel> channelCache;
 
+    /**
+     * The channel that first received a response from a source address and
+     * packet version during the current scan.
+     */
+    private final Map<SourceKey, IDiscoveryChannel> scanSources = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the current scan has sent multicast queries on the
+     * interface-bound channels only. Only then do the wildcard and the
+     * interface-bound channels receive copies of the same responses, so
+     * {@link #scanSources} is only used in that case.
+     */
+    private volatile boolean multicastScan;
+
+    /**
+     * The number of responses dropped because another channel already
+     * received them.
+     */
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Marks a missing {@link System#nanoTime()}, which may be any other
+     * value including {@code 0}.
+     */
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * The {@link System#nanoTime()} the current scan has been started at or
+     * {@link #NO_TIME} if no scan has been started.
+     */
+    private volatile long scanStarted = NO_TIME;
+
+    /**
+     * The {@link System#nanoTime()} of the first response of the current
+     * scan or {@link #NO_TIME} if there was none.
+     */
+    private final AtomicLong firstResponse = new AtomicLong(NO_TIME);
+
+    /**
+     * The {@link System#nanoTime()} of the latest response of the current
+     * scan or {@link #NO_TIME} if there was none.
+     */
+    private volatile long lastResponse = NO_TIME;
+
+    /**
+     * The metrics the parse times are recorded to.
+     */
+    private final DiscoveryMetrics metrics = DiscoveryMetrics.getDefault();
+
+    /**
+     * The filter dropping repeated datagrams before parsing or {@code null}.
+     */
+    private volatile DuplicateFilter duplicateFilter;
+
     /**
      * A simple variable to indicate whether this server should finish.
      */
@@ -56,7 +183,7 @@ public abstract class IDiscoveryServer extends QueryServer {
      * An {@link ExecutorService} needed to execute different actions and to fire
      * events.
      */
-    protected ExecutorService executorService;
+    protected volatile ExecutorService executorService;
 
     /**
      * Creates a new {@link IDiscoveryServer} with the given identifier.
@@ -64,8 +191,40 @@ public abstract class IDiscoveryServer extends QueryServer {
      * @param name the name of this service.
      */
     protected IDiscoveryServer(String name) {
+        this(name, System.getProperty("ubnt.nio.enabled", "false")
+                         .equalsIgnoreCase("true"));
+    }
+
+    /**
+     * Creates a new {@link IDiscoveryServer} with the given identifier.
+     *
+     * @param name            the name of this service.
+     * @param selectorEnabled whether all channels should be served by a
+     *                        single {@link Selector}
+     */
+    protected IDiscoveryServer(String name, boolean selectorEnabled) {
+        this(name, selectorEnabled, UbntExecutors.getDefault());
+    }
+
+    /**
+     * Creates a new {@link IDiscoveryServer} with the given identifier that
+     * runs all receiving tasks on the given executor.
+     *
+     * @param name            the name of this service.
+     * @param selectorEnabled whether all channels should be served by a
+     *                        single {@link Selector}
+     * @param executorService the executor for all receiving tasks
+     */
+    protected IDiscoveryServer(String name, boolean selectorEnabled, ExecutorService executorService) {
         super(name);
-        executorService = Executors.newFixedThreadPool(4);
+        this.selectorEnabled = selectorEnabled;
+        // Non-blocking channels can receive into direct buffers, whereas
+        // DatagramPackets need an accessible array.
+        bufferPool = new UbntBufferPool(UbntBufferPool.DEFAULT_SLAB_SIZE,
+                                        UbntBufferPool.DEFAULT_CAPACITY, selectorEnabled);
+        this.executorService = Objects.requireNonNull(executorService);
+        long window = Long.getLong("ubnt.dedup.window", DuplicateFilter.DEFAULT_WINDOW);
+        duplicateFilter = window > 0 ? new DuplicateFilter(window) : null;
         finished = false;
         packetCache = new ArrayList<>(10);
         channelCache = new ArrayList<>(5);
@@ -119,7 +278,8 @@ public abstract class IDiscoveryServer extends QueryServer {
      * <p>
      * Next, all socket relevant configuration will be applied to a
      * {@link DatagramSocket} object. The default receiving buffer size will
-     * be {@code 4096*2}.
+     * be {@code 4096*2}. In selector mode, a non-blocking
+     * {@link DatagramChannel} is opened instead.
      *
      * @param networkInterface the net interface
      * @param address          the address to bind to
@@ -128,10 +288,19 @@ public abstract class IDiscoveryServer extends QueryServer {
     public boolean bind(String networkInterface, InetAddress address) {
         DatagramSocket socket = null;
         try {
-            socket = getSocket(networkInterface, address);
-            socket.setReceiveBufferSize(4096 * 2);
             final String name = String.format("%#02x", this.channelCache.size());
-            IDiscoveryChannel channel = new IDiscoveryChannel(name, socket, networkInterface, address);
+            IDiscoveryChannel channel;
+            if (selectorEnabled) {
+                DatagramChannel datagramChannel = getDatagramChannel(networkInterface, address);
+                datagramChannel.configureBlocking(false);
+                datagramChannel.setOption(StandardSocketOptions.SO_RCVBUF, 4096 * 2);
+                channel = new IDiscoveryChannel(name, datagramChannel, networkInterface, address);
+                socket  = channel.datagramSocket;
+            } else {
+                socket = getSocket(networkInterface, address);
+                socket.setReceiveBufferSize(4096 * 2);
+                channel = new IDiscoveryChannel(name, socket, networkInterface, address);
+            }
             channelCache.add(channel);
 
             idsLogger.info("[IDS@" + channel.name + "]::Bind(success=" + socket.getLocalAddress()
@@ -150,13 +319,19 @@ public abstract class IDiscoveryServer extends QueryServer {
      * @throws IOException if the channel has been closed
      */
     public void send(DatagramPacket packet) throws IOException {
-        idsLogger.info("[IDS]::Send(start)");
+        idsLogger.fine("[IDS]::Send(start)");
 
         List<Integer> errors = new ArrayList<>(10);
 
         synchronized (channelCache) {
+            boolean perInterface = packet.getAddress().isMulticastAddress() && hasInterfaceChannel(packet);
             for (int i = 0; i < channelCache.size(); i++) {
                 IDiscoveryChannel channel = channelCache.get(i);
+                if (perInterface && channel.networkInterface == null) {
+                    // The interface channels already cover all interfaces
+                    continue;
+                }
+
                 if (channel.datagramSocket.getLocalAddress() instanceof Inet6Address) {
                     // We don't want to send IPv4-packets on IPv6-interfaces
                     if (!(packet.getAddress() instanceof Inet6Address)) continue;
@@ -167,13 +342,23 @@ public abstract class IDiscoveryServer extends QueryServer {
                     if (!(packet.getAddress() instanceof Inet4Address)) continue;
                 }
                 try {
-                    idsLogger.info(
-                            "[IDS@" + channel.name + "]::Send(from=" + channel.datagramSocket.getLocalAddress()
-                                    + " to=" + packet.getSocketAddress() + ")");
-                    channel.datagramSocket.send(packet);
+                    idsLogger.finer(() -> "[IDS@" + channel.name + "]::Send(from="
+                            + channel.datagramSocket.getLocalAddress() + " to=" + packet.getSocketAddress() + ")");
+                    if (channel.datagramChannel != null) {
+                        // The socket adaptor of a non-blocking channel can't
+                        // be used for sending.
+                        channel.datagramChannel.send(ByteBuffer.wrap(packet.getData(), packet.getOffset(),
+                                                                     packet.getLength()),
+                                                     packet.getSocketAddress());
+                    } else {
+                        channel.datagramSocket.send(packet);
+                    }
+                    channel.sent.increment();
                 } catch (SocketException e) {
+                    channel.sendErrors.increment();
                     errors.add(i);
                 } catch (Exception e2) {
+                    channel.sendErrors.increment();
                     idsLogger.log(Level.WARNING, "[IDS@" + channel.name + "]::Send(" + e2.getMessage() + ")", e2);
                 }
             }
@@ -184,7 +369,75 @@ public abstract class IDiscoveryServer extends QueryServer {
                 close(channelCache.get(idx));
             }
         }
-        idsLogger.info("[IDS]::Send(end)");
+        idsLogger.fine("[IDS]::Send(end)");
+    }
+
+    /**
+     * Returns whether a channel bound to a network interface can send the
+     * given packet. The caller must hold the lock of {@link #channelCache}.
+     *
+     * @param packet the packet to send
+     * @return {@code true} if there is such a channel
+     */
+    private boolean hasInterfaceChannel(DatagramPacket packet) {
+        boolean v6 = packet.getAddress() instanceof Inet6Address;
+        for (IDiscoveryChannel channel : channelCache) {
+            if (channel.networkInterface != null
+                    && (channel.datagramSocket.getLocalAddress() instanceof Inet6Address) == v6) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the given unicast {@link DatagramPacket} on a single channel of
+     * the packet's address family. The wildcard channel is preferred, so the
+     * operating system selects the interface by its routing table.
+     *
+     * @param packet the packet to send
+     * @return {@code false} if the packet could not be sent
+     * @throws IOException if no channel of the packet's address family is open
+     */
+    public boolean sendUnicast(DatagramPacket packet) throws IOException {
+        boolean v6 = packet.getAddress() instanceof Inet6Address;
+        IDiscoveryChannel target = null;
+        synchronized (channelCache) {
+            for (IDiscoveryChannel channel : channelCache) {
+                InetAddress local = channel.datagramSocket.getLocalAddress();
+                // The wildcard address may be bound as a dual-stack socket
+                if (!local.isAnyLocalAddress() && (local instanceof Inet6Address) != v6) continue;
+
+                if (target == null || local.isAnyLocalAddress()) {
+                    target = channel;
+                }
+                if (local.isAnyLocalAddress()) break;
+            }
+        }
+        if (target == null) {
+            throw new IOException("No channel to send to " + packet.getAddress());
+        }
+
+        try {
+            if (target.datagramChannel != null) {
+                target.datagramChannel.send(ByteBuffer.wrap(packet.getData(), packet.getOffset(),
+                                                            packet.getLength()),
+                                            packet.getSocketAddress());
+            } else {
+                target.datagramSocket.send(packet);
+            }
+            target.sent.increment();
+            return true;
+        } catch (SocketException e) {
+            target.sendErrors.increment();
+            if (target.datagramSocket.isClosed()) {
+                close(target);
+            }
+            IDiscoveryChannel channel = target;
+            idsLogger.fine(() -> "[IDS@" + channel.name + "]::SendUnicast(to="
+                    + packet.getSocketAddress() + ", " + e.getMessage() + ")");
+            return false;
+        }
     }
 
     /**
@@ -203,6 +456,7 @@ public abstract class IDiscoveryServer extends QueryServer {
 
             channelCache.remove(channel);
         }
+        scanSources.values().removeIf(owner -> owner == channel);
     }
 
     /**
@@ -213,7 +467,12 @@ public abstract class IDiscoveryServer extends QueryServer {
     @Override
     public void run() {
         finished = false;
-        executorService = Executors.newFixedThreadPool(channelCache.size());
+        if (selectorEnabled) {
+            idsLogger.info("[IDS]::Run(channelCount=" + channelCache.size() + ", selector=true)");
+            startSelector();
+            return;
+        }
+
         idsLogger.info("[IDS]::Run(channelCount=" + channelCache.size() + ")");
 
         try {
@@ -227,12 +486,170 @@ public abstract class IDiscoveryServer extends QueryServer {
     }
 
     /**
-     * Sends all packets that were cached.
+     * Sends all packets that were cached and starts a new scan. The cache is
+     * filled with {@link #createQueryPackets()} on first use.
      */
     @Override
     public void sendAll() throws IOException {
-        for (DatagramPacket packet : packetCache) {
-            send(packet);
+        logStatistics();
+        scanSources.clear();
+        firstResponse.set(NO_TIME);
+        lastResponse = NO_TIME;
+        scanStarted  = System.nanoTime();
+        synchronized (packetCache) {
+            if (packetCache.isEmpty()) {
+                packetCache.addAll(createQueryPackets());
+            }
+            boolean multicast = false;
+            synchronized (channelCache) {
+                for (DatagramPacket packet : packetCache) {
+                    multicast |= packet.getAddress().isMulticastAddress() && hasInterfaceChannel(packet);
+                }
+            }
+            multicastScan = multicast;
+            for (DatagramPacket packet : packetCache) {
+                send(packet);
+            }
+        }
+    }
+
+    /**
+     * Sets the filter that drops repeated datagrams before they are parsed.
+     *
+     * @param duplicateFilter the filter or {@code null} to parse every
+     *                        datagram
+     */
+    public void setDuplicateFilter(DuplicateFilter duplicateFilter) {
+        this.duplicateFilter = duplicateFilter;
+    }
+
+    /**
+     * Returns the filter that drops repeated datagrams before they are
+     * parsed.
+     *
+     * @return the filter or {@code null}
+     */
+    public DuplicateFilter getDuplicateFilter() {
+        return duplicateFilter;
+    }
+
+    /**
+     * Returns the number of responses that were not parsed, because another
+     * channel received them first during the same scan.
+     *
+     * @return the suppressed response count
+     */
+    @Override
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Returns the counters of all bound channels.
+     *
+     * @return a snapshot of the counters per channel
+     */
+    @Override
+    public List<ChannelStatistics> getChannelStatistics() {
+        synchronized (channelCache) {
+            List<ChannelStatistics> statistics = new ArrayList<>(channelCache.size());
+            for (IDiscoveryChannel channel : channelCache) {
+                statistics.add(channel.getStatistics());
+            }
+            return statistics;
+        }
+    }
+
+    /**
+     * Returns the sum of the counters of all bound channels.
+     *
+     * @return a snapshot of the summed counters named {@code "total"}
+     */
+    @Override
+    public ChannelStatistics getTotalStatistics() {
+        long[] total = new long[ChannelStatistics.COUNTERS];
+        synchronized (channelCache) {
+            for (IDiscoveryChannel channel : channelCache) {
+                long[] counters = channel.counters();
+                for (int i = 0; i < total.length; i++) {
+                    total[i] += counters[i];
+                }
+            }
+        }
+        return new ChannelStatistics("total", null, total);
+    }
+
+    /**
+     * Returns the time from the start of the current scan (the last call of
+     * {@link #sendAll()}) to its first response. Query packets are not
+     * counted as responses.
+     *
+     * @return the milliseconds or {@code -1} if there was no response
+     */
+    @Override
+    public long getFirstResponseMillis() {
+        return elapsedMillis(firstResponse.get());
+    }
+
+    /**
+     * Returns the time from the start of the current scan (the last call of
+     * {@link #sendAll()}) to its latest response. Query packets are not
+     * counted as responses.
+     *
+     * @return the milliseconds or {@code -1} if there was no response
+     */
+    @Override
+    public long getLastResponseMillis() {
+        return elapsedMillis(lastResponse);
+    }
+
+    /**
+     * Returns the milliseconds between the start of the current scan and the
+     * given time.
+     *
+     * @param nanos the {@link System#nanoTime()} of a response or
+     *              {@link #NO_TIME}
+     * @return the milliseconds or {@code -1} if either time is missing
+     */
+    private long elapsedMillis(long nanos) {
+        long started = scanStarted;
+        if (started == NO_TIME || nanos == NO_TIME) {
+            return -1;
+        }
+        return Math.max(0, (nanos - started) / 1_000_000L);
+    }
+
+    /**
+     * Logs the counters of every channel that has sent or received packets
+     * since they have been logged the last time. Only the changes are
+     * logged, so every scan results in at most one line per channel.
+     */
+    private void logStatistics() {
+        if (!idsLogger.isLoggable(Level.INFO)) {
+            return;
+        }
+        synchronized (channelCache) {
+            for (IDiscoveryChannel channel : channelCache) {
+                long[] counters = channel.counters();
+                long[] last     = channel.logged;
+                long   changes  = 0;
+                for (int i = 0; i < counters.length; i++) {
+                    changes += counters[i] - last[i];
+                }
+                if (changes == 0) {
+                    continue;
+                }
+                idsLogger.info("[IDS@" + channel.name + "]::Stats(received=" + (counters[0] - last[0])
+                                       + ", queries=" + (counters[1] - last[1])
+                                       + ", duplicates=" + (counters[2] - last[2])
+                                       + ", filtered=" + (counters[3] - last[3])
+                                       + ", parsed=" + (counters[4] - last[4])
+                                       + ", malformed=" + (counters[5] - last[5])
+                                       + ", sent=" + (counters[6] - last[6])
+                                       + ", sendErrors=" + (counters[7] - last[7])
+                                       + ", bytes=" + (counters[8] - last[8]) + ")");
+                channel.logged = counters;
+            }
         }
     }
 
@@ -240,52 +657,297 @@ public abstract class IDiscoveryServer extends QueryServer {
      * Listens for {@link DatagramPacket} on the given {@link IDiscoveryChannel}
      * and breaks if the received packet length is {@code 0}.
      * <p>
-     * This method will be executed with the {@link #executorService} on a
-     * fixed size thread pool.
+     * This method will be executed with the {@link #executorService}. No
+     * task is started if the channel is still served by a previous run.
      *
      * @param channel the channel to listen on.
      * @throws IOException if an error occurs
      */
     protected void listen(IDiscoveryChannel channel) throws IOException {
+        if (!channel.listening.compareAndSet(false, true)) {
+            // The task of the previous run is still receiving
+            return;
+        }
         executorService.execute(() -> {
+            ByteBuffer slab    = bufferPool.lease();
+            boolean    stopped = false;
             try {
-                byte[] buffer = new byte[1024];
                 DatagramSocket socket = channel.datagramSocket;
-                while (!isFinished()) {
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                DatagramPacket packet = new DatagramPacket(slab.array(), slab.capacity());
+                while (!(stopped = isFinished())) {
+                    packet.setLength(slab.capacity());
                     socket.receive(packet);
-                    // REVISIT: reformat logging messages.
+                    if (packet.getLength() == 0) break;
 
-                    //query packets will be discarded
-                    if (packet.getLength() == 4) {
-                        idsLogger.info("[IDS@" + channel.name + "]::Listen(from="
-                                + packet.getAddress() + "): Query Packet discarded!");
-                        continue;
-                    } else if (packet.getLength() == 0) break;
-
-                    idsLogger.info("[IDS@" + channel.name + "]::Listen(from=" + packet.getAddress()
-                            + "): Received Packet with length: " + packet.getLength());
-                    IUbntService service = parsePacket(packet);
-                    Arrays.fill(buffer, (byte) 0);
-                    if (service != null) {
-                        service.setNetworkInterface(channel.networkInterface);
-                        service.setSourceAddress(packet.getAddress());
-
-                        idsLogger.info("[IDS@" + channel.name + "]::Listen(newService at " + packet.getAddress() + ")");
-                        fireOnServiceDiscovered(service);
-                    } else {
-                        idsLogger.warning("[IDS@" + channel.name + "]::Listen(Skipping empty Service result!)");
+                    // The slab stays in use if no service took it over
+                    if (receive(channel, packet, slab)) {
+                        slab = bufferPool.lease();
+                        packet.setData(slab.array());
                     }
-
                 }
             } catch (SocketTimeoutException timeoutException) {
                 //ignore
             } catch (IOException e) {
                 idsLogger.log(Level.WARNING, "[IDS]Listen(" + e.getMessage() + ")", e);
+            } finally {
+                bufferPool.release(slab);
+                channel.listening.set(false);
+            }
+
+            // This server may have been started again while the task was
+            // leaving the loop.
+            if (stopped && !isFinished()) {
+                try {
+                    listen(channel);
+                } catch (IOException e) {
+                    idsLogger.log(Level.WARNING, "[IDS]Listen(" + e.getMessage() + ")", e);
+                }
             }
         });
     }
 
+    /**
+     * Starts the selector task unless it is still running.
+     */
+    private void startSelector() {
+        if (selecting.compareAndSet(false, true)) {
+            executorService.execute(this::select);
+        }
+    }
+
+    /**
+     * Serves all {@link IDiscoveryChannel}s with a single {@link Selector}
+     * until this server has finished.
+     * <p>
+     * Every readable channel is drained completely before the selector is
+     * queried again. This method will be executed with the
+     * {@link #executorService} and is started at most once at a time.
+     */
+    protected void select() {
+        ByteBuffer buffer = bufferPool.lease();
+        try (Selector selector = Selector.open()) {
+            synchronized (channelCache) {
+                for (IDiscoveryChannel channel : channelCache) {
+                    if (channel.datagramChannel != null && channel.datagramChannel.isOpen()) {
+                        channel.datagramChannel.register(selector, SelectionKey.OP_READ, channel);
+                    }
+                }
+            }
+            this.selector = selector;
+
+            while (!isFinished()) {
+                if (selector.select(SELECT_TIMEOUT) == 0) {
+                    continue;
+                }
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (!key.isValid() || !key.isReadable()) {
+                        continue;
+                    }
+
+                    IDiscoveryChannel channel = (IDiscoveryChannel) key.attachment();
+                    SocketAddress     source;
+                    try {
+                        while ((source = channel.datagramChannel.receive(buffer)) != null) {
+                            buffer.flip();
+                            if (buffer.hasRemaining()
+                                    && receive(channel, buffer, ((InetSocketAddress) source).getAddress())) {
+                                buffer = bufferPool.lease();
+                            } else {
+                                buffer.clear();
+                            }
+                        }
+                    } catch (IOException e) {
+                        idsLogger.log(Level.WARNING, "[IDS@" + channel.name + "]::Select(" + e.getMessage() + ")", e);
+                        key.cancel();
+                        buffer.clear();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            idsLogger.log(Level.WARNING, "[IDS]::Select(" + e.getMessage() + ")", e);
+        } finally {
+            this.selector = null;
+            bufferPool.release(buffer);
+            selecting.set(false);
+        }
+
+        // This server may have been started again while the selector was
+        // closing.
+        if (!isFinished()) {
+            startSelector();
+        }
+    }
+
+    /**
+     * Handles a {@link DatagramPacket} that has been received on the given
+     * {@link IDiscoveryChannel}. Query packets will be discarded and all
+     * listeners will be notified if a service could be parsed. Exceptions
+     * thrown while parsing are counted as malformed packets, so the channel
+     * and its slab stay usable.
+     *
+     * @param channel the channel the packet was received on
+     * @param packet  the received packet, backed by the given slab
+     * @param slab    the pooled buffer backing the packet
+     * @return {@code true} if the slab has been handed over to a service
+     *         and must not be reused
+     */
+    protected boolean receive(IDiscoveryChannel channel, DatagramPacket packet, ByteBuffer slab) {
+        receiving.incrementAndGet();
+        try {
+            ByteBuffer datagram = ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength());
+            if (accept(channel, datagram, packet.getAddress())) {
+                long         start   = System.nanoTime();
+                IUbntService service = null;
+                try {
+                    service = parsePacket(packet);
+                } catch (RuntimeException e) {
+                    // A single malformed datagram must not end receiving
+                    idsLogger.log(Level.FINE, "[IDS@" + channel.name + "]::Parse(" + e + ")", e);
+                }
+                metrics.parsed(System.nanoTime() - start);
+                return dispatch(channel, service, packet.getAddress(), slab);
+            }
+            return false;
+        } finally {
+            receiving.decrementAndGet();
+        }
+    }
+
+    /**
+     * Handles the remaining bytes of the given pooled buffer that have been
+     * received on the given {@link IDiscoveryChannel}. The buffer is passed
+     * to {@link #parseBuffer(ByteBuffer)} without copying it first.
+     *
+     * @param channel the channel the packet was received on
+     * @param buffer  the received packet
+     * @param source  the sender's address
+     * @return {@code true} if the buffer has been handed over to a service
+     *         and must not be reused
+     */
+    protected boolean receive(IDiscoveryChannel channel, ByteBuffer buffer, InetAddress source) {
+        receiving.incrementAndGet();
+        try {
+            if (accept(channel, buffer, source)) {
+                long         start   = System.nanoTime();
+                IUbntService service = null;
+                try {
+                    service = parseBuffer(buffer);
+                } catch (RuntimeException e) {
+                    // A single malformed datagram must not end receiving
+                    idsLogger.log(Level.FINE, "[IDS@" + channel.name + "]::Parse(" + e + ")", e);
+                }
+                metrics.parsed(System.nanoTime() - start);
+                return dispatch(channel, service, source, buffer);
+            }
+            return false;
+        } finally {
+            receiving.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns whether the given received datagram should be parsed. This is
+     * the only place where received datagrams are dropped: datagrams that
+     * arrive after this server has finished are ignored, query packets are
+     * discarded first. During a multicast scan, responses that another
+     * channel has received first are discarded next, unless the other
+     * channel is the wildcard channel and this one is bound to an
+     * interface; such a copy replaces the wildcard one and always passes,
+     * because the {@link DuplicateFilter} would drop it as a repeat. All
+     * other responses are passed to the duplicate filter, if any.
+     *
+     * @param channel  the channel the packet was received on
+     * @param datagram the received bytes, its position is not changed
+     * @param source   the sender's address
+     * @return {@code true} if the packet should be parsed
+     */
+    private boolean accept(IDiscoveryChannel channel, ByteBuffer datagram, InetAddress source) {
+        if (finished) {
+            // The blocking receive of a finished server returns one more
+            // datagram, which must not reach the listeners anymore
+            return false;
+        }
+        int length = datagram.remaining();
+        channel.received.increment();
+        channel.bytes.add(length);
+
+        //query packets will be discarded
+        if (length == 4) {
+            channel.queries.increment();
+            idsLogger.finest(() -> "[IDS@" + channel.name + "]::Listen(from=" + source + ", query)");
+            return false;
+        }
+
+        long now = System.nanoTime();
+        if (firstResponse.get() == NO_TIME) {
+            firstResponse.compareAndSet(NO_TIME, now);
+        }
+        lastResponse = now;
+
+        if (multicastScan) {
+            int               version = length > 0 ? datagram.get(datagram.position()) : -1;
+            SourceKey         key     = new SourceKey(source, version);
+            IDiscoveryChannel owner   = scanSources.putIfAbsent(key, channel);
+            if (owner != null && owner != channel) {
+                if (owner.networkInterface == null && channel.networkInterface != null
+                        && scanSources.replace(key, owner, channel)) {
+                    // The copy of the wildcard channel lacks the interface
+                    // name, so the interface-bound copy is parsed as well
+                    idsLogger.finer(() -> "[IDS@" + channel.name + "]::Listen(from=" + source
+                            + ", replaces=" + owner.name + ")");
+                    return true;
+                }
+                suppressed.increment();
+                channel.duplicates.increment();
+                idsLogger.finest(() -> "[IDS@" + channel.name + "]::Listen(from=" + source
+                        + ", duplicateOf=" + owner.name + ")");
+                return false;
+            }
+        }
+
+        DuplicateFilter filter = duplicateFilter;
+        if (filter != null && filter.isDuplicate(datagram)) {
+            channel.filtered.increment();
+            idsLogger.finest(() -> "[IDS@" + channel.name + "]::Listen(from=" + source + ", repeated)");
+            return false;
+        }
+
+        idsLogger.finer(() -> "[IDS@" + channel.name + "]::Listen(from=" + source + ", length=" + length + ")");
+        return true;
+    }
+
+    /**
+     * Notifies all listeners about the given service if it is not
+     * {@code null}. The pooled buffer is attached to the service before any
+     * listener is notified.
+     *
+     * @param channel the channel the service was discovered on
+     * @param service the parsed service
+     * @param source  the sender's address
+     * @param slab    the pooled buffer the service has been parsed from
+     * @return {@code true} if the slab has been handed over to the service
+     */
+    private boolean dispatch(IDiscoveryChannel channel, IUbntService service, InetAddress source,
+                             ByteBuffer slab) {
+        if (service != null) {
+            service.setNetworkInterface(channel.networkInterface);
+            service.setSourceAddress(source);
+            service.attach(bufferPool, slab);
+
+            channel.parsed.increment();
+            idsLogger.finer(() -> "[IDS@" + channel.name + "]::Listen(newService at " + source + ")");
+            fireOnServiceDiscovered(service);
+            return true;
+        }
+        channel.malformed.increment();
+        idsLogger.fine(() -> "[IDS@" + channel.name + "]::Listen(from=" + source + ", malformed)");
+        return false;
+    }
+
     /**
      * Sets up this server by creating all {@link DatagramSocket}s.
      */
@@ -321,12 +983,7 @@ public abstract class IDiscoveryServer extends QueryServer {
      */
     @Override
     public boolean isDaemon() {
-        try {
-            packetCache.addAll(createQueryPackets());
-            return true;
-        } catch (IOException e) {
-            return false;
-        }
+        return true;
     }
 
     /**
@@ -340,6 +997,41 @@ public abstract class IDiscoveryServer extends QueryServer {
     protected abstract DatagramSocket getSocket(
             String networkInterface, InetAddress address) throws IOException;
 
+    /**
+     * Creates a new datagram channel that can send and receive packets from
+     * the UDP broadcast. This method is used instead of
+     * {@link #getSocket(String, InetAddress)} if this server runs in selector
+     * mode.
+     *
+     * @param networkInterface the net interface
+     * @param address          the inet address
+     * @return the newly created {@link DatagramChannel}
+     */
+    protected DatagramChannel getDatagramChannel(String networkInterface, InetAddress address)
+            throws IOException {
+        DatagramChannel channel = DatagramChannel.open(address instanceof Inet6Address
+                                                               ? StandardProtocolFamily.INET6
+                                                               : StandardProtocolFamily.INET);
+        try {
+            channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+            // Port must be 0, see #3
+            channel.bind(new InetSocketAddress(address, 0));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the pool providing the receive buffers of this server.
+     *
+     * @return the buffer pool
+     */
+    public UbntBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     /**
      * Tells the caller whether this {@link QueryServer} has finished
      * executing its statements.
@@ -347,17 +1039,36 @@ public abstract class IDiscoveryServer extends QueryServer {
      * @return whether this object has done its job
      */
     @Override
-    public synchronized boolean isFinished() {
+    public boolean isFinished() {
+        // Checked for every received packet, the field is volatile
         return finished;
     }
 
     /**
      * Finished this runnable task. (has the same effect as the {@code join()}
-     * takes in {@link Thread}).
+     * takes in {@link Thread}). Datagrams received afterwards are ignored,
+     * and this method waits at most {@value #SELECT_TIMEOUT} milliseconds
+     * for the datagrams that are being dispatched, so no listener is
+     * notified once it returns.
      */
     @Override
     public synchronized void doFinish() {
         finished = true;
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SELECT_TIMEOUT);
+        while (receiving.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logStatistics();
     }
 
     /**
@@ -376,6 +1087,23 @@ public abstract class IDiscoveryServer extends QueryServer {
      */
     protected abstract IUbntService parsePacket(DatagramPacket packet);
 
+    /**
+     * Parses the remaining bytes of the given buffer and returns a service
+     * device object.
+     * <p>
+     * By default, the buffer is wrapped into a {@link DatagramPacket} and
+     * passed to {@link #parsePacket(DatagramPacket)}, which requires a copy
+     * for direct buffers.
+     *
+     * @param buffer the packet to parse
+     * @return the service device storing the packet's values
+     */
+    protected IUbntService parseBuffer(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return parsePacket(new DatagramPacket(data, data.length));
+    }
+
     /**
      * Clears all discovered services and cached packets.
      *
@@ -386,6 +1114,70 @@ public abstract class IDiscoveryServer extends QueryServer {
         packetCache.clear();
     }
 
+    /**
+     * Identifies a source address and packet version within a scan. IPv6
+     * addresses are kept in full, so two devices never share a key.
+     */
+    private static final class SourceKey {
+
+        /**
+         * The upper 64 bits of an IPv6 address or {@code 0} for IPv4.
+         */
+        private final long high;
+
+        /**
+         * The lower 64 bits of an IPv6 address or the IPv4 address.
+         */
+        private final long low;
+
+        /**
+         * The packet version.
+         */
+        private final int version;
+
+        /**
+         * Creates a new key.
+         *
+         * @param source  the sender's address
+         * @param version the packet version
+         */
+        SourceKey(InetAddress source, int version) {
+            byte[] address = source.getAddress();
+            long   high    = 0;
+            long   low     = 0;
+            for (int i = 0; i < address.length; i++) {
+                if (i < address.length - 8) {
+                    high = (high << 8) | (address[i] & 0xFFL);
+                } else {
+                    low = (low << 8) | (address[i] & 0xFFL);
+                }
+            }
+            // IPv4 addresses and IPv4-compatible IPv6 addresses differ
+            this.high    = address.length == 4 ? -1L : high;
+            this.low     = low;
+            this.version = version;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SourceKey)) return false;
+            SourceKey key = (SourceKey) o;
+            return high == key.high && low == key.low && version == key.version;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(high) * 31 + Long.hashCode(low)) * 31 + version;
+        }
+    }
+
     /**
      * {@code IDiscoveryChannel} objects are used as an attachment to store the
      * linked {@link DatagramSocket} together with its {@link InetAddress}
@@ -403,6 +1195,12 @@ public abstract class IDiscoveryServer extends QueryServer {
          */
         private DatagramSocket datagramSocket;
 
+        /**
+         * The non-blocking channel backing the {@link #datagramSocket} if
+         * the server runs in selector mode; {@code null} otherwise.
+         */
+        private DatagramChannel datagramChannel;
+
         /**
          * The specified {@link NetworkInterface}.
          */
@@ -413,6 +1211,61 @@ public abstract class IDiscoveryServer extends QueryServer {
          */
         private InetAddress address;
 
+        /**
+         * Whether a task is receiving on this channel.
+         */
+        private final AtomicBoolean listening = new AtomicBoolean();
+
+        /**
+         * The amount of received datagrams.
+         */
+        private final LongAdder received = new LongAdder();
+
+        /**
+         * The amount of received query packets.
+         */
+        private final LongAdder queries = new LongAdder();
+
+        /**
+         * The amount of responses another channel has received first.
+         */
+        private final LongAdder duplicates = new LongAdder();
+
+        /**
+         * The amount of datagrams dropped by the {@link DuplicateFilter}.
+         */
+        private final LongAdder filtered = new LongAdder();
+
+        /**
+         * The amount of parsed services.
+         */
+        private final LongAdder parsed = new LongAdder();
+
+        /**
+         * The amount of datagrams that could not be parsed.
+         */
+        private final LongAdder malformed = new LongAdder();
+
+        /**
+         * The amount of sent packets.
+         */
+        private final LongAdder sent = new LongAdder();
+
+        /**
+         * The amount of packets that could not be sent.
+         */
+        private final LongAdder sendErrors = new LongAdder();
+
+        /**
+         * The amount of received bytes.
+         */
+        private final LongAdder bytes = new LongAdder();
+
+        /**
+         * The counters that have been logged the last time.
+         */
+        private long[] logged = new long[ChannelStatistics.COUNTERS];
+
         /**
          * Creates a new {@link IDiscoveryChannel} with the given configuration
          * variables.
@@ -443,6 +1296,21 @@ public abstract class IDiscoveryServer extends QueryServer {
             this.address = address;
         }
 
+        /**
+         * Creates a new {@link IDiscoveryChannel} backed by a non-blocking
+         * {@link DatagramChannel}.
+         *
+         * @param name             the channel's name
+         * @param datagramChannel  the datagram channel
+         * @param networkInterface the linked {@link NetworkInterface}
+         * @param address          the inet address
+         */
+        public IDiscoveryChannel(String name, DatagramChannel datagramChannel, String networkInterface,
+                                 InetAddress address) {
+            this(name, datagramChannel.socket(), networkInterface, address);
+            this.datagramChannel = datagramChannel;
+        }
+
         /**
          * Returns whether this {@link IDiscoveryChannel} can be applied to
          * the given configuration variables.
@@ -457,6 +1325,28 @@ public abstract class IDiscoveryServer extends QueryServer {
             } else return this.networkInterface != null && this.networkInterface.equals(networkInterface)
                     && this.address != null && this.address.equals(address);
         }
+
+        /**
+         * Returns the current values of all counters in the order of
+         * {@link ChannelStatistics}.
+         *
+         * @return the counters
+         */
+        private long[] counters() {
+            return new long[]{
+                    received.sum(), queries.sum(), duplicates.sum(), filtered.sum(),
+                    parsed.sum(), malformed.sum(), sent.sum(), sendErrors.sum(), bytes.sum()
+            };
+        }
+
+        /**
+         * Returns a snapshot of all counters of this channel.
+         *
+         * @return the channel statistics
+         */
+        public ChannelStatistics getStatistics() {
+            return new ChannelStatistics(name, networkInterface, counters());
+        }
     }
 
 }
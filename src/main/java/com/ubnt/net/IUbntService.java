@@ -4,6 +4,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -119,6 +120,43 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
      */
     boolean remove(Record record);
 
+    /**
+     * Hands the pooled buffer this service has been parsed from over to
+     * this service. The buffer will be returned to the given pool once
+     * this service is released.
+     * <p>
+     * By default, all records are copied out of the buffer and the buffer
+     * is released immediately.
+     *
+     * @param pool the pool the buffer was leased from
+     * @param buffer the buffer referenced by this service's records
+     */
+    default void attach(UbntBufferPool pool, ByteBuffer buffer) {
+        detach();
+        pool.release(buffer);
+    }
+
+    /**
+     * Copies the raw bytes of all records out of the shared receive buffer
+     * and releases the buffer if it is pooled. Services that are kept by
+     * more than one consumer must be detached first (see
+     * {@link QueryServer#fireOnServiceDiscovered(IUbntService)}).
+     */
+    default void detach() {
+        for (Record record : this) {
+            record.detach();
+        }
+    }
+
+    /**
+     * Discards this service and returns its pooled receive buffer (if any)
+     * to its pool. The raw bytes of all records that have not been detached
+     * must not be used afterwards, so only the single owner of a service
+     * may release it. Releasing a detached service has no effect.
+     */
+    default void release() {
+    }
+
     /**
      * Tries to resolve a {@link Record} with the given type.
      *
@@ -250,6 +288,39 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
          */
         Object parseData(byte[] data, int start, int length);
 
+        /**
+         * Parses the given buffer and returns the record payload wrapped into
+         * an object. The given offsets are absolute positions in the buffer,
+         * so its position and limit are left untouched.
+         * <p>
+         * By default, the record's bytes are copied into a new array and
+         * passed to {@link #parseData(byte[], int, int)}. Implementations
+         * should override this method to read the buffer directly.
+         *
+         * @param buffer the raw data
+         * @param start the absolute start of the record
+         * @param length the data length
+         * @return the payload as an object
+         */
+        default Object parseData(ByteBuffer buffer, int start, int length) {
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = buffer.get(start + i);
+            }
+            return parseData(data, 0, length);
+        }
+
+        /**
+         * Returns the amount of bytes this parser reads no matter how long
+         * the record is. Records shorter than that are rejected before they
+         * are parsed.
+         *
+         * @return the minimum record length, {@code 0} by default
+         */
+        default int getMinimumLength() {
+            return 0;
+        }
+
     }
 
     /**
@@ -293,6 +364,23 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
          * @return an {@link IUbntService} with all parsed {@link Record}s.
          */
         public abstract IUbntService parse(byte[] data, int length);
+
+        /**
+         * Parses the remaining bytes of the given buffer (from its position
+         * up to its limit). The buffer's position and limit won't be
+         * modified.
+         * <p>
+         * By default, the remaining bytes are copied into a new array and
+         * passed to {@link #parse(byte[], int)}.
+         *
+         * @param buffer the raw data, possibly a direct buffer
+         * @return an {@link IUbntService} with all parsed {@link Record}s.
+         */
+        public IUbntService parse(ByteBuffer buffer) {
+            byte[] data = new byte[buffer.remaining()];
+            buffer.duplicate().get(data);
+            return parse(data, data.length);
+        }
     }
 
     /**
@@ -313,9 +401,16 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
 
         /**
          * The raw data buffer. Note that this object is shared between all
-         * records and should not be modified.
+         * records and should not be modified (unless it has been detached).
          */
-        private final byte[] data;
+        private byte[] data;
+
+        /**
+         * The raw data buffer if this record has been parsed from a
+         * {@link ByteBuffer}; {@code null} otherwise. Like {@link #data},
+         * this buffer is shared between all records.
+         */
+        private ByteBuffer buffer;
 
         /**
          * The {@link Record}'s type.
@@ -330,18 +425,44 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
         /**
          * The starting offset in relation to the {@link #data} variable
          */
-        private final int start;
+        private int start;
 
         /**
          * the payload created by a {@link RecordParser}.
          */
         private Object payload;
 
+        /**
+         * The parser used to decode the payload on the first call to
+         * {@link #getPayload()}; {@code null} if the payload has already
+         * been decoded or set.
+         */
+        private volatile RecordParser parser;
+
         public Record(int type, int length, int start, byte[] data) {
+            this(type, length, start, data, null);
+        }
+
+        private Record(int type, int length, int start, byte[] data, ByteBuffer buffer) {
             this.type   = type;
             this.length = length;
             this.start  = start;
             this.data   = data;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Creates a new {@link Record} referencing the given buffer. The
+         * start offset is an absolute position in that buffer.
+         *
+         * @param type the record's type
+         * @param length the raw data length
+         * @param start the absolute start of the record
+         * @param buffer the raw data buffer
+         * @return the new record
+         */
+        public static Record of(int type, int length, int start, ByteBuffer buffer) {
+            return new Record(type, length, start, null, buffer);
         }
 
         /**
@@ -411,7 +532,7 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
         /**
          * @return the starting offset in relation to the {@link #data} variable
          */
-        public int getStart() {
+        public synchronized int getStart() {
             return start;
         }
 
@@ -420,14 +541,80 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
          *
          * @return the data of this record.
          */
-        public byte[] getData() {
+        public synchronized byte[] getData() {
+            if (buffer != null) {
+                byte[] result = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    result[i] = buffer.get(start + i);
+                }
+                return result;
+            }
             return Arrays.copyOfRange(data, start, start + length);
         }
 
         /**
+         * @return whether this record references raw data
+         */
+        public synchronized boolean hasData() {
+            return buffer != null || data != null;
+        }
+
+        /**
+         * Reads an unsigned big-endian value directly from the raw data of
+         * this record without copying it.
+         *
+         * @param offset the offset relative to the start of this record
+         * @param length the amount of bytes to read (at most 8)
+         * @return the unsigned value
+         * @throws IllegalStateException if this record has no raw data
+         * @throws IndexOutOfBoundsException if the requested range exceeds
+         *         this record
+         */
+        public synchronized long getLong(int offset, int length) {
+            if (offset < 0 || length < 0 || offset + length > this.length) {
+                throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length);
+            }
+            if (buffer != null) {
+                return UbntIOUtilities.parseLong(buffer, start + offset, length);
+            }
+            if (data != null) {
+                return UbntIOUtilities.parseLong(data, start + offset, length);
+            }
+            throw new IllegalStateException("Record has no raw data");
+        }
+
+        /**
+         * Copies the raw data of this record into a private array, so it
+         * no longer references the shared receive buffer.
+         */
+        public synchronized void detach() {
+            if (buffer == null && (data == null || (start == 0 && data.length == length))) {
+                return;
+            }
+            data   = getData();
+            start  = 0;
+            buffer = null;
+        }
+
+        /**
+         * Returns the record's payload. If decoding has been deferred, the
+         * payload is decoded from the raw data now and memoized.
+         *
          * @return the record's payload
+         * @see #defer(RecordParser)
          */
         public Object getPayload() {
+            if (parser != null) {
+                synchronized (this) {
+                    RecordParser pending = parser;
+                    if (pending != null) {
+                        payload = buffer != null
+                                ? pending.parseData(buffer, start, length)
+                                : pending.parseData(data, start, length);
+                        parser = null;
+                    }
+                }
+            }
             return payload;
         }
 
@@ -436,8 +623,30 @@ public interface IUbntService extends Iterable<IUbntService.Record> {
          *
          * @param payload the record's payload
          */
-        public void setPayload(Object payload) {
+        public synchronized void setPayload(Object payload) {
             this.payload = payload;
+            this.parser  = null;
+        }
+
+        /**
+         * Defers decoding the payload until {@link #getPayload()} is called
+         * for the first time. The raw data of this record must stay valid
+         * until then (see {@link IUbntService#release()}).
+         *
+         * @param parser the parser used to decode the payload
+         */
+        public synchronized void defer(RecordParser parser) {
+            if (parser != null && hasData()) {
+                this.payload = null;
+                this.parser  = parser;
+            }
+        }
+
+        /**
+         * @return whether the payload of this record has been decoded
+         */
+        public boolean isDecoded() {
+            return parser == null;
         }
 
         /**
@@ -0,0 +1,724 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An append-only store of all devices that have ever answered, keyed by
+ * their MAC-Address.
+ * <p>
+ * The store is registered as the first {@link IDiscoveryListener} of a
+ * server, usually through an {@link AsyncDiscoveryListener} so the files
+ * are not written on the receiving threads, and appends every sighting of a device to a log segment in the
+ * snapshot format of {@link UbntSnapshotWriter}, so each entry keeps the
+ * time, interface, source address and the raw frame including firmware and
+ * uptime. A device that keeps answering with the same interface, address
+ * and firmware is recorded at most once per {@code "ubnt.inventory.interval"}
+ * milliseconds (default {@value #DEFAULT_INTERVAL}).
+ * <p>
+ * The store directory contains at most one compacted snapshot
+ * ({@code inventory-<n>.ubsn}) with the latest sighting of every device
+ * from all segments up to {@code n}, and the segments written since
+ * ({@code segment-<n>.ubsn}). When {@value #COMPACT_SEGMENTS} segments are
+ * full and when the store is closed, they are merged into a new snapshot
+ * on another thread. Opening a store reads the snapshot and replays the
+ * newer segments, so the devices of previous runs are known before the
+ * first response arrives. A segment that ends with a partially written
+ * entry is replayed up to that entry. A store directory can only be opened
+ * once at a time.
+ * <p>
+ * The store never keeps the services it is notified about and releases
+ * them once they are recorded: the known services (see
+ * {@link #getKnownServices()}) are read from the mapped files and are not
+ * pooled.
+ */
+public class InventoryStore implements IDiscoveryListener, Closeable {
+
+    /**
+     * The logger of this class.
+     */
+    private static final Logger logger = Logger.getLogger(InventoryStore.class.getSimpleName());
+
+    /**
+     * The default milliseconds between two recorded sightings of an
+     * unchanged device.
+     */
+    public static final long DEFAULT_INTERVAL = 60000L;
+
+    /**
+     * The default amount of sightings per segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16384;
+
+    /**
+     * The amount of full segments that are merged into a new snapshot.
+     */
+    public static final int COMPACT_SEGMENTS = 4;
+
+    /**
+     * The amount of recorded sightings kept in memory per device.
+     */
+    public static final int HISTORY = 16;
+
+    /**
+     * The milliseconds after which appended sightings are flushed.
+     */
+    private static final long FLUSH_MILLIS = 1000L;
+
+    /**
+     * The names of compacted snapshots.
+     */
+    private static final Pattern SNAPSHOT = Pattern.compile("inventory-(\\d+)\\" + UbntSnapshotWriter.EXTENSION);
+
+    /**
+     * The names of log segments.
+     */
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d+)\\" + UbntSnapshotWriter.EXTENSION);
+
+    /**
+     * The store directory.
+     */
+    private final File directory;
+
+    /**
+     * The milliseconds between two recorded sightings of an unchanged
+     * device.
+     */
+    private final long interval;
+
+    /**
+     * The amount of sightings after which a new segment is started.
+     */
+    private final int segmentSize;
+
+    /**
+     * All known devices by their MAC-Address.
+     */
+    private final Map<Long, Device> devices = new HashMap<>();
+
+    /**
+     * The full segments that have not been compacted yet, in order.
+     */
+    private final List<File> sealed = new ArrayList<>();
+
+    /**
+     * Held while a compaction is running.
+     */
+    private final Object compactLock = new Object();
+
+    /**
+     * Whether a compaction has been scheduled.
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * The lock held on the store directory until this store is closed.
+     */
+    private final FileLock lock;
+
+    /**
+     * The current snapshot or {@code null}.
+     */
+    private File snapshot;
+
+    /**
+     * The number of the next segment.
+     */
+    private long sequence;
+
+    /**
+     * The segment sightings are appended to or {@code null}.
+     */
+    private File segment;
+
+    /**
+     * The writer of the current {@link #segment} or {@code null}.
+     */
+    private UbntSnapshotWriter writer;
+
+    /**
+     * The time the current segment has been flushed the last time.
+     */
+    private long lastFlush;
+
+    /**
+     * Whether this store has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Opens the store in the given directory with the intervals configured
+     * by the system properties.
+     *
+     * @param directory the store directory, created if missing
+     * @throws IOException if the directory could not be created or read or
+     *                     is used by another process
+     */
+    public InventoryStore(File directory) throws IOException {
+        this(directory, Long.getLong("ubnt.inventory.interval", DEFAULT_INTERVAL), DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the store in the given directory and reads all known devices.
+     *
+     * @param directory   the store directory, created if missing
+     * @param interval    the milliseconds between two recorded sightings of
+     *                    an unchanged device, {@code 0} to record every
+     *                    sighting
+     * @param segmentSize the amount of sightings per segment
+     * @throws IOException if the directory could not be created or read or
+     *                     is used by another process
+     */
+    public InventoryStore(File directory, long interval, int segmentSize) throws IOException {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval must not be negative");
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive");
+        }
+        this.directory   = directory;
+        this.interval    = interval;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory.toPath());
+        FileChannel channel = FileChannel.open(directory.toPath().resolve(".lock"), StandardOpenOption.CREATE,
+                                               StandardOpenOption.WRITE);
+        FileLock    lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Inventory is used by another process: " + directory);
+        }
+        this.lock = lock;
+        try {
+            load();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the latest snapshot and replays all newer segments. Outdated
+     * files of an interrupted compaction are deleted.
+     *
+     * @throws IOException if the directory could not be read
+     */
+    private void load() throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+
+        long                 snapshotNumber = -1;
+        TreeMap<Long, File>  snapshots      = new TreeMap<>();
+        TreeMap<Long, File>  segments       = new TreeMap<>();
+        for (File file : files) {
+            Matcher matcher = SNAPSHOT.matcher(file.getName());
+            if (matcher.matches()) {
+                snapshots.put(Long.parseLong(matcher.group(1)), file);
+                continue;
+            }
+            matcher = SEGMENT.matcher(file.getName());
+            if (matcher.matches()) {
+                segments.put(Long.parseLong(matcher.group(1)), file);
+            }
+        }
+
+        if (!snapshots.isEmpty()) {
+            snapshotNumber = snapshots.lastKey();
+            snapshot       = snapshots.pollLastEntry().getValue();
+            snapshots.values().forEach(InventoryStore::delete);
+            replay(snapshot);
+        }
+        for (Map.Entry<Long, File> entry : segments.entrySet()) {
+            if (entry.getKey() <= snapshotNumber) {
+                delete(entry.getValue());
+            } else {
+                replay(entry.getValue());
+                sealed.add(entry.getValue());
+            }
+        }
+        sequence = Math.max(snapshotNumber, segments.isEmpty() ? -1 : segments.lastKey()) + 1;
+
+        logger.info("[INV]::Load(devices=" + devices.size() + ", segments=" + sealed.size() + ")");
+        scheduleCompaction();
+    }
+
+    /**
+     * Adds all sightings of the given file to the known devices.
+     *
+     * @param file the snapshot or segment
+     */
+    private void replay(File file) {
+        try (UbntSnapshotReader reader = new UbntSnapshotReader(file)) {
+            IUbntService service;
+            while ((service = reader.next()) != null) {
+                long mac = ServiceRegistry.macOf(service);
+                if (mac != ServiceRegistry.NO_MAC) {
+                    devices.computeIfAbsent(mac, key -> new Device())
+                           .load(service, new Sighting(service, reader.getTimestamp()));
+                }
+            }
+        } catch (IOException e) {
+            // A crash may leave a partially written entry at the end
+            logger.warning("[INV]::Replay(file=" + file.getName() + ", " + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Records the given sighting if the device is new, has changed or has
+     * not been recorded within the interval. The service is released
+     * afterwards.
+     *
+     * @param service the new service
+     */
+    @Override
+    public void onServiceLocated(IUbntService service) {
+        try {
+            record(service);
+        } finally {
+            service.release();
+        }
+    }
+
+    /**
+     * Records the given sighting if the device is new, has changed or has
+     * not been recorded within the interval.
+     *
+     * @param service the new service
+     */
+    private void record(IUbntService service) {
+        long mac = ServiceRegistry.macOf(service);
+        if (mac == ServiceRegistry.NO_MAC) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Device   device   = devices.computeIfAbsent(mac, key -> new Device());
+            Sighting sighting = new Sighting(service, now);
+            device.lastSeen = Math.max(device.lastSeen, now);
+
+            Sighting recorded = device.getLatest();
+            if (recorded != null && now - recorded.timestamp < interval && recorded.isSameAs(sighting)) {
+                return;
+            }
+            device.add(sighting);
+            append(service, now);
+        }
+    }
+
+    /**
+     * Appends the given service to the current segment and starts a new
+     * segment if it is full.
+     *
+     * @param service   the service
+     * @param timestamp the time it has been seen
+     */
+    private void append(IUbntService service, long timestamp) {
+        try {
+            if (writer == null) {
+                segment   = new File(directory, String.format("segment-%08d%s", sequence++, UbntSnapshotWriter.EXTENSION));
+                writer    = new UbntSnapshotWriter(segment);
+                lastFlush = timestamp;
+            }
+            writer.append(service, timestamp);
+            if (writer.getCount() >= segmentSize) {
+                seal();
+                scheduleCompaction();
+            } else if (timestamp - lastFlush >= FLUSH_MILLIS) {
+                writer.flush();
+                lastFlush = timestamp;
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "[INV]::Append(" + e.getMessage() + ")", e);
+            seal();
+        }
+    }
+
+    /**
+     * Closes the current segment and marks it for compaction.
+     */
+    private void seal() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "[INV]::Seal(" + e.getMessage() + ")", e);
+        }
+        sealed.add(segment);
+        writer  = null;
+        segment = null;
+    }
+
+    /**
+     * Compacts the sealed segments on another thread if there are enough of
+     * them.
+     */
+    private synchronized void scheduleCompaction() {
+        if (sealed.size() < COMPACT_SEGMENTS || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        UbntExecutors.getDefault().execute(() -> {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "[INV]::Compact(" + e.getMessage() + ")", e);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Merges the snapshot and all sealed segments into a new snapshot that
+     * only contains the latest sighting of every device. The merged files
+     * are deleted afterwards. Sightings are appended to a new segment in
+     * the meantime.
+     *
+     * @throws IOException if the new snapshot could not be written
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            List<File> segments;
+            File       base;
+            synchronized (this) {
+                segments = new ArrayList<>(sealed);
+                base     = snapshot;
+            }
+            if (segments.isEmpty()) {
+                return;
+            }
+
+            Map<Long, IUbntService> latest     = new LinkedHashMap<>();
+            Map<Long, Long>         timestamps = new HashMap<>();
+            List<File>              sources    = new ArrayList<>(segments);
+            if (base != null) {
+                sources.add(0, base);
+            }
+            for (File file : sources) {
+                try (UbntSnapshotReader reader = new UbntSnapshotReader(file)) {
+                    IUbntService service;
+                    while ((service = reader.next()) != null) {
+                        long mac = ServiceRegistry.macOf(service);
+                        Long seen = timestamps.get(mac);
+                        if (mac != ServiceRegistry.NO_MAC && (seen == null || reader.getTimestamp() >= seen)) {
+                            latest.put(mac, service);
+                            timestamps.put(mac, reader.getTimestamp());
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.warning("[INV]::Compact(file=" + file.getName() + ", " + e.getMessage() + ")");
+                }
+            }
+
+            String name   = segments.get(segments.size() - 1).getName().replace("segment-", "inventory-");
+            File   target = new File(directory, name);
+            File   temp   = new File(directory, name + ".tmp");
+            try (UbntSnapshotWriter out = new UbntSnapshotWriter(temp)) {
+                for (Map.Entry<Long, IUbntService> entry : latest.entrySet()) {
+                    out.append(entry.getValue(), timestamps.get(entry.getKey()));
+                }
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+
+            synchronized (this) {
+                sealed.removeAll(segments);
+                snapshot = target;
+            }
+            if (base != null) {
+                delete(base);
+            }
+            segments.forEach(InventoryStore::delete);
+            logger.fine(() -> "[INV]::Compact(devices=" + latest.size() + ", segments=" + segments.size() + ")");
+        }
+    }
+
+    /**
+     * Deletes the given file. Files that are still mapped can't be deleted
+     * on some platforms; they are deleted when the store is opened again.
+     *
+     * @param file the file to delete
+     */
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            logger.fine(() -> "[INV]::Delete(failed=" + file.getName() + ")");
+        }
+    }
+
+    /**
+     * Returns the latest service of every device that has been read when
+     * this store was opened, i.e. all devices known from previous runs.
+     *
+     * @return the known services
+     */
+    public synchronized List<IUbntService> getKnownServices() {
+        List<IUbntService> services = new ArrayList<>(devices.size());
+        for (Device device : devices.values()) {
+            if (device.service != null) {
+                services.add(device.service);
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Returns the time the given device has been seen the last time.
+     *
+     * @param mac the MAC-Address
+     * @return the time in milliseconds or {@code -1} if the device is unknown
+     */
+    public synchronized long getLastSeen(long mac) {
+        Device device = devices.get(mac);
+        return device == null ? -1 : device.lastSeen;
+    }
+
+    /**
+     * Returns the latest recorded sightings of the given device, oldest
+     * first. Compacted snapshots only keep the latest sighting of each
+     * device.
+     *
+     * @param mac the MAC-Address
+     * @return at most {@value #HISTORY} sightings
+     */
+    public synchronized List<Sighting> getHistory(long mac) {
+        Device device = devices.get(mac);
+        return device == null ? Collections.emptyList() : new ArrayList<>(device.history);
+    }
+
+    /**
+     * Returns the amount of known devices.
+     *
+     * @return the device count
+     */
+    public synchronized int size() {
+        return devices.size();
+    }
+
+    /**
+     * Returns the store directory.
+     *
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Closes the current segment and merges all segments into a new
+     * snapshot.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            seal();
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "[INV]::Close(" + e.getMessage() + ")", e);
+        }
+        try {
+            lock.channel().close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "[INV]::Close(" + e.getMessage() + ")", e);
+        }
+    }
+
+    /**
+     * A single recorded response of a device.
+     */
+    public static final class Sighting {
+
+        /**
+         * The time the device has answered in milliseconds.
+         */
+        private final long timestamp;
+
+        /**
+         * The interface the response has been received on or {@code null}.
+         */
+        private final String networkInterface;
+
+        /**
+         * The source address of the response or {@code null}.
+         */
+        private final InetAddress address;
+
+        /**
+         * The firmware version or {@code null}.
+         */
+        private final String firmware;
+
+        /**
+         * The uptime in seconds or {@code -1}.
+         */
+        private final long uptime;
+
+        /**
+         * Creates a new sighting of the given service.
+         *
+         * @param service   the response
+         * @param timestamp the time the device has answered
+         */
+        Sighting(IUbntService service, long timestamp) {
+            this.timestamp        = timestamp;
+            this.networkInterface = service.getInterface();
+            this.address          = service.getSourceAddress();
+
+            IUbntService.Record firmware = service.get(IUbntService.FW_VERSION);
+            this.firmware = firmware == null || firmware.getPayload() == null ? null
+                                                                              : firmware.getPayload().toString();
+            IUbntService.Record uptime = service.get(IUbntService.UPTIME);
+            this.uptime = uptime != null && uptime.getPayload() instanceof Number
+                          ? ((Number) uptime.getPayload()).longValue() : -1;
+        }
+
+        /**
+         * Returns whether the given sighting has the same interface, source
+         * address and firmware.
+         *
+         * @param other the other sighting
+         * @return {@code true} if nothing relevant has changed
+         */
+        boolean isSameAs(Sighting other) {
+            return Objects.equals(networkInterface, other.networkInterface)
+                    && Objects.equals(address, other.address)
+                    && Objects.equals(firmware, other.firmware);
+        }
+
+        /**
+         * @return the time the device has answered in milliseconds
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the interface the response has been received on or
+         *         {@code null}
+         */
+        public String getInterface() {
+            return networkInterface;
+        }
+
+        /**
+         * @return the source address of the response or {@code null}
+         */
+        public InetAddress getAddress() {
+            return address;
+        }
+
+        /**
+         * @return the firmware version or {@code null}
+         */
+        public String getFirmware() {
+            return firmware;
+        }
+
+        /**
+         * @return the uptime in seconds or {@code -1} if unknown
+         */
+        public long getUptime() {
+            return uptime;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "timestamp=" + timestamp + ", interface=" + networkInterface + ", address="
+                    + (address == null ? null : address.getHostAddress()) + ", firmware=" + firmware
+                    + ", uptime=" + uptime;
+        }
+    }
+
+    /**
+     * The state of a single known device.
+     */
+    private static final class Device {
+
+        /**
+         * The latest recorded sightings, oldest first.
+         */
+        private final Deque<Sighting> history = new ArrayDeque<>(4);
+
+        /**
+         * The latest service read from the store or {@code null} if the
+         * device has not been known when the store was opened.
+         */
+        private IUbntService service;
+
+        /**
+         * The time the device has been seen the last time.
+         */
+        private long lastSeen;
+
+        /**
+         * Adds a sighting read from the store.
+         *
+         * @param service  the stored service
+         * @param sighting the sighting of the service
+         */
+        void load(IUbntService service, Sighting sighting) {
+            if (sighting.timestamp >= lastSeen) {
+                this.service = service;
+                lastSeen     = sighting.timestamp;
+            }
+            add(sighting);
+        }
+
+        /**
+         * Adds a recorded sighting and drops the oldest one if the history
+         * is full.
+         *
+         * @param sighting the sighting
+         */
+        void add(Sighting sighting) {
+            if (history.size() == HISTORY) {
+                history.removeFirst();
+            }
+            history.addLast(sighting);
+        }
+
+        /**
+         * @return the latest recorded sighting or {@code null}
+         */
+        Sighting getLatest() {
+            return history.peekLast();
+        }
+    }
+}
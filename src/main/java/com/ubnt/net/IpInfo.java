@@ -1,5 +1,7 @@
 package com.ubnt.net; //@date 07.12.2022
 
+import java.util.Objects;
+
 /**
  * A simple class storing the MAC-Address and IP-Address of a discovered
  * {@link IUbntService}.
@@ -42,6 +44,19 @@ public final class IpInfo {
         return ip;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IpInfo)) return false;
+        IpInfo ipInfo = (IpInfo) o;
+        return Objects.equals(mac, ipInfo.mac) && Objects.equals(ip, ipInfo.ip);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mac, ip);
+    }
+
     @Override
     public String toString() {
         return "IpInfo{" +
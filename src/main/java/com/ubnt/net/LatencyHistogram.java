@@ -0,0 +1,180 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds with a fixed memory footprint.
+ * <p>
+ * Like the buckets of an HdrHistogram, every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so every recorded value is
+ * counted with a relative error below {@code 1/}{@value #SUB_BUCKETS}
+ * (about 3%). Values below {@code 2 * }{@value #SUB_BUCKETS} nanoseconds
+ * are counted exactly and values above {@link #MAX_VALUE} are counted as
+ * {@link #MAX_VALUE}. The histogram uses {@value #BUCKET_COUNT} counters
+ * (less than 10 KB) no matter how many values are recorded.
+ * <p>
+ * Recording is lock-free and may be called from any thread; reading a
+ * percentile while values are recorded returns an approximation of the
+ * current distribution.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The amount of bits used for the linear sub-buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The amount of linear sub-buckets per power of two.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The highest power of two that is tracked, {@code 2^40} nanoseconds or
+     * about 18 minutes. Its sub-buckets reach up to {@link #MAX_VALUE}.
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    /**
+     * The highest value that is tracked in nanoseconds, about 36.6 minutes.
+     */
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    /**
+     * The amount of buckets.
+     */
+    public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+    /**
+     * The counts per bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * The amount of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * The sum of all recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * The highest recorded value.
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records the given duration.
+     *
+     * @param nanos the duration in nanoseconds, negative values are counted
+     *              as {@code 0}
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the bucket of the given value.
+     *
+     * @param value a value between {@code 0} and {@link #MAX_VALUE}
+     * @return the bucket index
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value counted by the given bucket.
+     *
+     * @param index the bucket index
+     * @return the highest value of the bucket
+     */
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub  = index - shift * SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of all
+     * recorded values lies.
+     *
+     * @param percentile the percentile between {@code 0} and {@code 100}
+     * @return the value in nanoseconds or {@code 0} if nothing has been
+     *         recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank  = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total));
+        long seen  = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return the amount of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the mean of all recorded values in nanoseconds or {@code 0}
+     *         if nothing has been recorded
+     */
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * @return the highest recorded value in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", p50=" + getPercentile(50) + "ns, p99=" + getPercentile(99)
+                + "ns, max=" + getMax() + "ns";
+    }
+}
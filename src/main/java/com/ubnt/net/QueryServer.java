@@ -1,12 +1,18 @@
 package com.ubnt.net; //@date 06.12.2022
 
-import javax.swing.event.EventListenerList;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * The {@code QueryServer} is used to create an abstract layer for
- * {@link IDiscoveryServer} classes. It contains an {@code EventListenerList}
- * to store {@code EventListener} objects based on their base class.
+ * {@link IDiscoveryServer} classes. It stores all {@link IDiscoveryListener}s
+ * in a copy-on-write array, so notifying them neither locks nor allocates.
+ * <p>
+ * A discovered service is owned by the listener it is handed to: the
+ * listener either keeps it or calls {@link IUbntService#release()} once it
+ * drops it. If more than one listener is registered, the service is
+ * detached from its pooled receive buffer first, so every listener can
+ * keep or release it on its own.
  * <p>
  * Usually, objects of this type will be executed on an extra {@link Thread}
  * to prevent blocking the main application thread.
@@ -21,10 +27,20 @@ public abstract class QueryServer implements Runnable {
     private final String name;
 
     /**
-     * The {@link EventListenerList} holding all listeners that can listen
-     * on this task.
+     * The empty listener array.
+     */
+    private static final IDiscoveryListener[] NO_LISTENERS = new IDiscoveryListener[0];
+
+    /**
+     * All listeners that can listen on this task. The array is replaced on
+     * every modification and never changed afterwards.
      */
-    protected EventListenerList listenerList = new EventListenerList();
+    private volatile IDiscoveryListener[] listeners = NO_LISTENERS;
+
+    /**
+     * The lock guarding modifications of the {@link #listeners}.
+     */
+    private final Object listenerLock = new Object();
 
     /**
      * Creates a new {@link QueryServer} with the given identifier.
@@ -93,27 +109,86 @@ public abstract class QueryServer implements Runnable {
      */
     public void addListener(IDiscoveryListener listener) {
         if (listener != null) {
-            listenerList.add(IDiscoveryListener.class, listener);
+            synchronized (listenerLock) {
+                IDiscoveryListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+                copy[copy.length - 1] = listener;
+                listeners = copy;
+            }
         }
     }
 
     /**
-     * Removes the given {@link IDiscoveryListener}.
+     * Adds the given listener to the list. If the queue capacity is
+     * positive, the listener is notified on its own thread through an
+     * {@link AsyncDiscoveryListener} with a bounded queue.
+     *
+     * @param listener      the listener to add
+     * @param queueCapacity the maximum amount of queued services or
+     *                      {@code 0} to notify the listener directly
+     */
+    public void addListener(IDiscoveryListener listener, int queueCapacity) {
+        if (listener != null && queueCapacity > 0) {
+            listener = new AsyncDiscoveryListener(listener, queueCapacity);
+        }
+        addListener(listener);
+    }
+
+    /**
+     * Removes the given {@link IDiscoveryListener}. If it has been added
+     * with a queue, its {@link AsyncDiscoveryListener} is closed.
      *
      * @param listener the listener to be removed
      */
     public void removeListener(IDiscoveryListener listener) {
-        listenerList.remove(IDiscoveryListener.class, listener);
+        synchronized (listenerLock) {
+            IDiscoveryListener[] current = listeners;
+            for (int i = current.length - 1; i >= 0; i--) {
+                IDiscoveryListener element = current[i];
+                boolean async = element instanceof AsyncDiscoveryListener
+                        && ((AsyncDiscoveryListener) element).getDelegate() == listener;
+                if (element == listener || async) {
+                    IDiscoveryListener[] copy = new IDiscoveryListener[current.length - 1];
+                    System.arraycopy(current, 0, copy, 0, i);
+                    System.arraycopy(current, i + 1, copy, i, copy.length - i);
+                    listeners = copy.length == 0 ? NO_LISTENERS : copy;
+                    if (async) {
+                        ((AsyncDiscoveryListener) element).close();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all registered listeners.
+     *
+     * @return a copy of the listener array
+     */
+    public IDiscoveryListener[] getListeners() {
+        return listeners.clone();
     }
 
     /**
      * Notifies all stored {@link IDiscoveryListener}s that a new service
-     * has been found.
+     * has been found. This method may be called by several receiving
+     * threads at once.
+     * <p>
+     * The service is released if there is no listener and detached if
+     * there is more than one.
      *
      * @param service the service that has been discovered
      */
-    public synchronized void fireOnServiceDiscovered(IUbntService service) {
-        for (IDiscoveryListener listener : listenerList.getListeners(IDiscoveryListener.class)) {
+    public void fireOnServiceDiscovered(IUbntService service) {
+        IDiscoveryListener[] listeners = this.listeners;
+        if (listeners.length == 0) {
+            service.release();
+            return;
+        }
+        if (listeners.length > 1) {
+            service.detach();
+        }
+        for (IDiscoveryListener listener : listeners) {
             listener.onServiceLocated(service);
         }
     }
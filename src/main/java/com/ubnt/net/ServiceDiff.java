@@ -0,0 +1,461 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import javax.swing.event.EventListenerList;
+import java.util.*;
+
+/**
+ * Compares discovered services with a previous set of services, e.g. an
+ * exported inventory, by their MAC-Address.
+ * <p>
+ * The previous services are indexed once; every located service is then
+ * compared with its previous service as soon as it arrives, so a scan,
+ * a snapshot or an XML file can be diffed in a single pass without
+ * collecting the current services first. Registered {@link DiffListener}s
+ * are notified about added and changed devices immediately and about
+ * removed devices when {@link #finish()} is called.
+ * <p>
+ * Only the records listed in {@link Change} are compared, and only if
+ * both sides contain them, because devices answer every packet version
+ * with a different set of records. The previous responses of a device are
+ * therefore merged: a record is compared with the previous response of the
+ * same packet version if that contains it, otherwise with any previous
+ * response that does. Each record is compared once per device, so a later
+ * response, e.g. the answer to another query version, only adds the
+ * records that have not been compared yet. Services are neither kept nor
+ * released.
+ */
+public class ServiceDiff implements IDiscoveryListener {
+
+    /**
+     * The compared records.
+     */
+    public enum Change {
+        /**
+         * The firmware version has changed.
+         */
+        FIRMWARE(IUbntService.FW_VERSION),
+
+        /**
+         * The IP-Addresses of the {@link IUbntService#IPINFO} records have
+         * changed.
+         */
+        ADDRESS(IUbntService.IPINFO),
+
+        /**
+         * The hostname has changed.
+         */
+        HOSTNAME(IUbntService.HOSTNAME),
+
+        /**
+         * The uptime is lower than before, so the device has rebooted.
+         */
+        REBOOT(IUbntService.UPTIME),
+
+        /**
+         * The device has been reset to or configured from its default
+         * settings.
+         */
+        DEFAULT(IUbntService.DEFAULT);
+
+        /**
+         * The compared record type.
+         */
+        private final int type;
+
+        /**
+         * Creates a new change.
+         *
+         * @param type the compared record type
+         */
+        Change(int type) {
+            this.type = type;
+        }
+
+        /**
+         * @return the compared record type
+         */
+        public int getType() {
+            return type;
+        }
+
+        /**
+         * Returns the compared value of the given service.
+         *
+         * @param service the service
+         * @return the value or {@code null} if the service doesn't contain
+         *         the record
+         */
+        String valueOf(IUbntService service) {
+            if (this == ADDRESS) {
+                String addresses = addresses(service);
+                return addresses.isEmpty() ? null : addresses;
+            }
+
+            IUbntService.Record record  = service.get(type);
+            Object              payload = record == null ? null : record.getPayload();
+            if (this == REBOOT) {
+                return payload instanceof Number ? String.valueOf(((Number) payload).longValue()) : null;
+            }
+            return payload == null ? null : payload.toString();
+        }
+
+        /**
+         * Compares the given values of this record.
+         *
+         * @param oldValue the previous value
+         * @param newValue the current value
+         * @return the delta or {@code null} if nothing has changed
+         */
+        Delta compare(String oldValue, String newValue) {
+            boolean differs = this == REBOOT ? Long.parseLong(newValue) < Long.parseLong(oldValue)
+                                             : !oldValue.equals(newValue);
+            return differs ? new Delta(this, oldValue, newValue) : null;
+        }
+    }
+
+    /**
+     * {@code DiffListener}s are notified about the differences between the
+     * previous and the current services.
+     */
+    public interface DiffListener extends EventListener {
+
+        /**
+         * Invoked when a device has no previous service.
+         *
+         * @param service the current service
+         */
+        void onServiceAdded(IUbntService service);
+
+        /**
+         * Invoked when at least one compared record of a device has changed.
+         *
+         * @param previous the previous service
+         * @param service  the current service
+         * @param deltas   the changed records
+         */
+        void onServiceChanged(IUbntService previous, IUbntService service, List<Delta> deltas);
+
+        /**
+         * Invoked by {@link #finish()} for every previous device that has
+         * not been located.
+         *
+         * @param previous the previous service
+         */
+        void onServiceRemoved(IUbntService previous);
+    }
+
+    /**
+     * A single changed record.
+     */
+    public static final class Delta {
+
+        /**
+         * The kind of change.
+         */
+        private final Change change;
+
+        /**
+         * The previous value.
+         */
+        private final String oldValue;
+
+        /**
+         * The current value.
+         */
+        private final String newValue;
+
+        /**
+         * Creates a new delta.
+         *
+         * @param change   the kind of change
+         * @param oldValue the previous value
+         * @param newValue the current value
+         */
+        Delta(Change change, String oldValue, String newValue) {
+            this.change   = change;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * @return the kind of change
+         */
+        public Change getChange() {
+            return change;
+        }
+
+        /**
+         * @return the previous value
+         */
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        /**
+         * @return the current value
+         */
+        public String getNewValue() {
+            return newValue;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return change.name().toLowerCase(Locale.ROOT) + ": " + oldValue + " -> " + newValue;
+        }
+    }
+
+    /**
+     * The previous services by their MAC-Address, at most one per packet
+     * version and the latest one last.
+     */
+    private final Map<Long, List<IUbntService>> previous = new LinkedHashMap<>();
+
+    /**
+     * The compared devices by their MAC-Address.
+     */
+    private final Map<Long, Device> seen = new HashMap<>();
+
+    /**
+     * All listeners that should be notified about differences.
+     */
+    private final EventListenerList listenerList = new EventListenerList();
+
+    /**
+     * The amount of added devices.
+     */
+    private int added;
+
+    /**
+     * The amount of changed devices.
+     */
+    private int changed;
+
+    /**
+     * The amount of unchanged devices.
+     */
+    private int unchanged;
+
+    /**
+     * The amount of removed devices.
+     */
+    private int removed;
+
+    /**
+     * Whether {@link #finish()} has been called.
+     */
+    private boolean finished;
+
+    /**
+     * Creates a new diff against the given services. Services without a
+     * MAC-Address are skipped; if a device occurs more than once with the
+     * same packet version, its last service of that version is used.
+     *
+     * @param baseline the previous services
+     */
+    public ServiceDiff(Iterable<? extends IUbntService> baseline) {
+        for (IUbntService service : baseline) {
+            long mac = ServiceRegistry.macOf(service);
+            if (mac != ServiceRegistry.NO_MAC) {
+                List<IUbntService> versions = previous.computeIfAbsent(mac, key -> new ArrayList<>(2));
+                versions.removeIf(version -> version.getPacketVersion() == service.getPacketVersion());
+                versions.add(service);
+            }
+        }
+    }
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener the listener
+     */
+    public void addListener(DiffListener listener) {
+        listenerList.add(DiffListener.class, listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(DiffListener listener) {
+        listenerList.remove(DiffListener.class, listener);
+    }
+
+    /**
+     * Compares the records of the given service that have not been compared
+     * for its device yet with the previous services of the same device and
+     * notifies all listeners if the device has been added or if any of
+     * these records has changed.
+     *
+     * @param service the current service
+     */
+    @Override
+    public synchronized void onServiceLocated(IUbntService service) {
+        long mac = ServiceRegistry.macOf(service);
+        if (finished || mac == ServiceRegistry.NO_MAC) {
+            return;
+        }
+
+        List<IUbntService> before = previous.get(mac);
+        Device             device = seen.get(mac);
+        if (device == null) {
+            device = new Device();
+            seen.put(mac, device);
+            if (before == null) {
+                added++;
+                for (DiffListener listener : listenerList.getListeners(DiffListener.class)) {
+                    listener.onServiceAdded(service);
+                }
+                return;
+            }
+            unchanged++;
+        }
+        if (before == null) {
+            return;
+        }
+
+        IUbntService reference = before.get(before.size() - 1);
+        for (IUbntService version : before) {
+            if (version.getPacketVersion() == service.getPacketVersion()) {
+                reference = version;
+            }
+        }
+        List<Delta> deltas = new ArrayList<>(2);
+        for (Change change : Change.values()) {
+            String newValue = change.valueOf(service);
+            if (newValue == null || device.compared.contains(change)) {
+                continue;
+            }
+            String oldValue = change.valueOf(reference);
+            for (int i = before.size() - 1; i >= 0 && oldValue == null; i--) {
+                oldValue = change.valueOf(before.get(i));
+            }
+            if (oldValue != null) {
+                device.compared.add(change);
+                Delta delta = change.compare(oldValue, newValue);
+                if (delta != null) {
+                    deltas.add(delta);
+                }
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        if (!device.changed) {
+            device.changed = true;
+            unchanged--;
+            changed++;
+        }
+        for (DiffListener listener : listenerList.getListeners(DiffListener.class)) {
+            listener.onServiceChanged(reference, service, deltas);
+        }
+    }
+
+    /**
+     * Notifies all listeners about the previous devices that have not been
+     * located. Services located afterwards are ignored.
+     */
+    public synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        for (Map.Entry<Long, List<IUbntService>> entry : previous.entrySet()) {
+            if (!seen.containsKey(entry.getKey())) {
+                removed++;
+                List<IUbntService> versions = entry.getValue();
+                for (DiffListener listener : listenerList.getListeners(DiffListener.class)) {
+                    listener.onServiceRemoved(versions.get(versions.size() - 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the changed records of the given services.
+     *
+     * @param before the previous service
+     * @param after  the current service
+     * @return the deltas in the order of {@link Change}
+     */
+    public static List<Delta> compare(IUbntService before, IUbntService after) {
+        List<Delta> deltas = new ArrayList<>(2);
+        for (Change change : Change.values()) {
+            String oldValue = change.valueOf(before);
+            String newValue = change.valueOf(after);
+            if (oldValue != null && newValue != null) {
+                Delta delta = change.compare(oldValue, newValue);
+                if (delta != null) {
+                    deltas.add(delta);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Returns the sorted IP-Addresses of all {@link IUbntService#IPINFO}
+     * records.
+     *
+     * @param service the service
+     * @return the comma separated addresses, empty if there are none
+     */
+    private static String addresses(IUbntService service) {
+        SortedSet<String> addresses = new TreeSet<>();
+        for (IUbntService.Record record : service) {
+            if (record.getType() == IUbntService.IPINFO && record.getPayload() instanceof IpInfo) {
+                addresses.add(((IpInfo) record.getPayload()).getIP());
+            }
+        }
+        return String.join(", ", addresses);
+    }
+
+    /**
+     * @return the amount of devices without a previous service
+     */
+    public synchronized int getAddedCount() {
+        return added;
+    }
+
+    /**
+     * @return the amount of devices with changed records
+     */
+    public synchronized int getChangedCount() {
+        return changed;
+    }
+
+    /**
+     * @return the amount of devices without changed records
+     */
+    public synchronized int getUnchangedCount() {
+        return unchanged;
+    }
+
+    /**
+     * @return the amount of previous devices that have not been located,
+     *         known after {@link #finish()}
+     */
+    public synchronized int getRemovedCount() {
+        return removed;
+    }
+
+    /**
+     * The state of a located device.
+     */
+    private static final class Device {
+
+        /**
+         * The records that have been compared already.
+         */
+        private final Set<Change> compared = EnumSet.noneOf(Change.class);
+
+        /**
+         * Whether any compared record has changed.
+         */
+        private boolean changed;
+    }
+}
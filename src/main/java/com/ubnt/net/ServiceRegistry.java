@@ -0,0 +1,484 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+import static com.ubnt.net.IUbntService.IPINFO;
+
+/**
+ * A thread-safe registry of {@link IUbntService}s keyed by the 48-bit
+ * MAC-Address of their {@link IUbntService#IPINFO} record.
+ * <p>
+ * MAC-Addresses are stored as primitive {@code long} values in an open
+ * addressing table, so lookups and upserts are {@code O(1)} and don't
+ * allocate. Services are kept in insertion order and can be accessed by
+ * their index; replacing a service keeps its index. Services without a
+ * MAC-Address are appended and never replaced.
+ * <p>
+ * All lookups use optimistic reads and only fall back to a read lock if a
+ * concurrent write has been detected.
+ *
+ * @see #upsert(IUbntService)
+ */
+public final class ServiceRegistry implements Iterable<IUbntService> {
+
+    /**
+     * The value returned by {@link #macOf(IUbntService)} if a service has
+     * no (valid) MAC-Address.
+     */
+    public static final long NO_MAC = -1L;
+
+    /**
+     * Marks a used slot in {@link #keys}; an all-zero MAC-Address would be
+     * indistinguishable from an empty slot otherwise.
+     */
+    private static final long USED = 1L << 48;
+
+    /**
+     * The lock guarding all fields below.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The open addressing table storing {@code mac | USED} per slot, or
+     * {@code 0} if a slot is empty.
+     */
+    private long[] keys;
+
+    /**
+     * The index into {@link #services} per slot in {@link #keys}.
+     */
+    private int[] indices;
+
+    /**
+     * All services in insertion order.
+     */
+    private IUbntService[] services;
+
+    /**
+     * The amount of stored services.
+     */
+    private int size;
+
+    /**
+     * The amount of used slots in {@link #keys}.
+     */
+    private int keyCount;
+
+    /**
+     * Creates a new empty registry.
+     */
+    public ServiceRegistry() {
+        this(16);
+    }
+
+    /**
+     * Creates a new empty registry.
+     *
+     * @param expectedSize the expected amount of services
+     */
+    public ServiceRegistry(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1) << 1);
+        keys     = new long[capacity];
+        indices  = new int[capacity];
+        services = new IUbntService[Math.max(16, expectedSize)];
+    }
+
+    /**
+     * Returns the MAC-Address of the given service as a 48-bit value. The
+     * raw bytes of the {@link IUbntService#IPINFO} record are read directly
+     * if present, otherwise the payload's MAC-Address string is parsed.
+     *
+     * @param service the service to inspect
+     * @return the MAC-Address or {@link #NO_MAC}
+     */
+    public static long macOf(IUbntService service) {
+        if (service == null) {
+            return NO_MAC;
+        }
+        IUbntService.Record record = service.get(IPINFO);
+        if (record == null) {
+            return NO_MAC;
+        }
+
+        if (record.hasData() && record.getLength() >= 6) {
+            return record.getLong(0, 6);
+        }
+        Object payload = record.getPayload();
+        if (payload instanceof IpInfo) {
+            return parseMac(((IpInfo) payload).getMAC());
+        }
+        return NO_MAC;
+    }
+
+    /**
+     * Parses a MAC-Address of the form {@code 80:2A:A8:53:58:7A} (the
+     * separator is ignored).
+     *
+     * @param mac the MAC-Address string
+     * @return the MAC-Address as a 48-bit value or {@link #NO_MAC}
+     */
+    public static long parseMac(String mac) {
+        if (mac == null) {
+            return NO_MAC;
+        }
+        long result = 0;
+        int  digits = 0;
+        for (int i = 0; i < mac.length(); i++) {
+            int digit = Character.digit(mac.charAt(i), 16);
+            if (digit >= 0) {
+                result = (result << 4) | digit;
+                digits++;
+            }
+        }
+        return digits == 12 ? result : NO_MAC;
+    }
+
+    /**
+     * Formats the given 48-bit value as a MAC-Address string like
+     * {@code 80:2A:A8:53:58:7A}.
+     *
+     * @param mac the MAC-Address
+     * @return the formatted MAC-Address
+     */
+    public static String formatMac(long mac) {
+        StringBuilder builder = new StringBuilder(17);
+        for (int shift = 40; shift >= 0; shift -= 8) {
+            int value = (int) (mac >>> shift) & 255;
+            builder.append(Character.toUpperCase(Character.forDigit(value >> 4, 16)))
+                   .append(Character.toUpperCase(Character.forDigit(value & 15, 16)));
+            if (shift > 0) {
+                builder.append(':');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Inserts the given service or replaces the service with the same
+     * MAC-Address.
+     *
+     * @param service the service to insert
+     * @return the replaced service or {@code null} if the service has been
+     *         appended
+     */
+    public IUbntService upsert(IUbntService service) {
+        return upsert(macOf(service), service);
+    }
+
+    /**
+     * Inserts the given service or replaces the service stored with the
+     * given MAC-Address.
+     *
+     * @param mac the MAC-Address or {@link #NO_MAC}
+     * @param service the service to insert
+     * @return the replaced service or {@code null} if the service has been
+     *         appended
+     */
+    public IUbntService upsert(long mac, IUbntService service) {
+        if (service == null) {
+            return null;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (mac == NO_MAC) {
+                append(service);
+                return null;
+            }
+
+            int slot = find(mac);
+            if (keys[slot] != 0) {
+                int          index    = indices[slot];
+                IUbntService previous = services[index];
+                services[index] = service;
+                return previous;
+            }
+
+            keys[slot]    = mac | USED;
+            indices[slot] = size;
+            append(service);
+            if (++keyCount * 2 > keys.length) {
+                rehash(keys.length << 1);
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the service stored with the given MAC-Address.
+     *
+     * @param mac the MAC-Address
+     * @return the stored service or {@code null}
+     */
+    public IUbntService get(long mac) {
+        long         stamp  = lock.tryOptimisticRead();
+        IUbntService result = lookup(mac);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = lookup(mac);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the service with the same MAC-Address as the given one.
+     *
+     * @param service the service to lookup
+     * @return the stored service or {@code null}
+     */
+    public IUbntService get(IUbntService service) {
+        long mac = macOf(service);
+        return mac == NO_MAC ? null : get(mac);
+    }
+
+    /**
+     * Returns the index of the service stored with the given MAC-Address.
+     *
+     * @param mac the MAC-Address
+     * @return the index or {@code -1}
+     */
+    public int indexOf(long mac) {
+        long stamp = lock.readLock();
+        try {
+            if (mac == NO_MAC) {
+                return -1;
+            }
+            int slot = find(mac);
+            return keys[slot] != 0 ? indices[slot] : -1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the service at the given index.
+     *
+     * @param index the index
+     * @return the service or {@code null} if the index is out of range
+     */
+    public IUbntService getAt(int index) {
+        long stamp = lock.readLock();
+        try {
+            return index >= 0 && index < size ? services[index] : null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns whether the given service instance is stored in this
+     * registry.
+     *
+     * @param service the service to check
+     * @return {@code true} if this exact instance is stored
+     */
+    public boolean contains(IUbntService service) {
+        long mac = macOf(service);
+        if (mac != NO_MAC) {
+            return get(mac) == service;
+        }
+
+        long stamp = lock.readLock();
+        try {
+            for (int i = 0; i < size; i++) {
+                if (services[i] == service) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the amount of stored services
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return whether this registry is empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all services.
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(keys, 0L);
+            Arrays.fill(services, 0, size, null);
+            size     = 0;
+            keyCount = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns a copy of all services in insertion order.
+     *
+     * @return the stored services
+     */
+    public List<IUbntService> toList() {
+        long stamp = lock.readLock();
+        try {
+            return new ArrayList<>(Arrays.asList(services).subList(0, size));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of all services in insertion
+     * order.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<IUbntService> iterator() {
+        final IUbntService[] snapshot;
+        long stamp = lock.readLock();
+        try {
+            snapshot = Arrays.copyOf(services, size);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < snapshot.length;
+            }
+
+            @Override
+            public IUbntService next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[index++];
+            }
+        };
+    }
+
+    /**
+     * Looks up the given MAC-Address without locking.
+     *
+     * @param mac the MAC-Address
+     * @return the stored service or {@code null}
+     */
+    private IUbntService lookup(long mac) {
+        if (mac == NO_MAC) {
+            return null;
+        }
+        // The arrays may be swapped by a concurrent rehash, so both are
+        // read once and the result is validated by the caller.
+        long[]         keys     = this.keys;
+        int[]          indices  = this.indices;
+        IUbntService[] services = this.services;
+        if (indices.length != keys.length) {
+            return null;
+        }
+
+        int  mask = keys.length - 1;
+        long key  = mac | USED;
+        for (int slot = hash(mac) & mask, i = 0; i <= mask; slot = (slot + 1) & mask, i++) {
+            if (keys[slot] == 0) {
+                return null;
+            }
+            if (keys[slot] == key) {
+                int index = indices[slot];
+                return index < services.length ? services[index] : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the slot of the given MAC-Address or the empty slot it should
+     * be inserted at.
+     *
+     * @param mac the MAC-Address
+     * @return the slot
+     */
+    private int find(long mac) {
+        int  mask = keys.length - 1;
+        long key  = mac | USED;
+        int  slot = hash(mac) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Appends the given service to {@link #services}.
+     *
+     * @param service the service to append
+     */
+    private void append(IUbntService service) {
+        if (size == services.length) {
+            services = Arrays.copyOf(services, size << 1);
+        }
+        services[size++] = service;
+    }
+
+    /**
+     * Resizes the open addressing table.
+     *
+     * @param capacity the new capacity (a power of two)
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys    = keys;
+        int[]  oldIndices = indices;
+        long[] newKeys    = new long[capacity];
+        int[]  newIndices = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i] & ~USED) & mask;
+                while (newKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot]    = oldKeys[i];
+                newIndices[slot] = oldIndices[i];
+            }
+        }
+        indices = newIndices;
+        keys    = newKeys;
+    }
+
+    /**
+     * Spreads the bits of the given MAC-Address.
+     *
+     * @param mac the MAC-Address
+     * @return the hash value
+     */
+    private static int hash(long mac) {
+        long h = mac * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
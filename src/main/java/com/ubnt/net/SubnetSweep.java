@@ -0,0 +1,291 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A unicast sweep over one or more IPv4 ranges in CIDR notation (for
+ * instance {@code "10.20.0.0/22, 10.30.4.0/24"}). Broadcast queries don't
+ * pass routers, so devices behind a layer 3 hop only answer queries that
+ * are sent to their address directly.
+ * <p>
+ * Only the first and last address of every range are stored; the target
+ * addresses are computed while sweeping, so a {@code /16} costs as much
+ * memory as a {@code /30}. The network and broadcast address of ranges
+ * larger than {@code /31} are skipped.
+ * <p>
+ * All packets are paced with a token bucket: tokens are refilled at the
+ * configured rate and a burst of at most {@link #getBurst()} packets may be
+ * sent back-to-back. The bucket is shared by all concurrent sweeps of the
+ * same instance.
+ *
+ * @see UbntDiscoveryServer#setSweep(SubnetSweep)
+ */
+public final class SubnetSweep {
+
+    /**
+     * The default amount of packets per second.
+     */
+    public static final int DEFAULT_RATE = 1000;
+
+    /**
+     * The ranges as specified.
+     */
+    private final String[] specs;
+
+    /**
+     * The first address of every range as an unsigned integer.
+     */
+    private final long[] firsts;
+
+    /**
+     * The last address of every range as an unsigned integer.
+     */
+    private final long[] lasts;
+
+    /**
+     * The amount of packets per second.
+     */
+    private final int rate;
+
+    /**
+     * The maximum amount of packets sent back-to-back.
+     */
+    private final int burst;
+
+    /**
+     * The nanoseconds needed to refill a single token.
+     */
+    private final long nanosPerToken;
+
+    /**
+     * The available tokens scaled by {@link #nanosPerToken}, so the bucket
+     * can be refilled without rounding errors.
+     */
+    private long tokenNanos;
+
+    /**
+     * The time of the last refill.
+     */
+    private long lastRefill;
+
+    /**
+     * Creates a new {@link SubnetSweep} from the given ranges.
+     *
+     * @param ranges comma or whitespace separated IPv4 ranges in CIDR
+     *               notation; single addresses are treated as {@code /32}
+     * @param rate   the amount of packets per second
+     * @throws IllegalArgumentException if a range is invalid, not an IPv4
+     *                                  range or the rate is not positive
+     */
+    public SubnetSweep(String ranges, int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (ranges == null || ranges.isBlank()) {
+            throw new IllegalArgumentException("No ranges specified");
+        }
+
+        this.specs  = ranges.trim().split("[,\\s]+");
+        this.firsts = new long[specs.length];
+        this.lasts  = new long[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            parseRange(specs[i], i);
+        }
+
+        this.rate          = rate;
+        this.burst         = Math.max(1, rate / 20);
+        this.nanosPerToken = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / rate);
+        this.tokenNanos    = burst * nanosPerToken;
+        this.lastRefill    = System.nanoTime();
+    }
+
+    /**
+     * Parses a single range and stores its bounds at the given index.
+     *
+     * @param spec  the range
+     * @param index the index of the range
+     */
+    private void parseRange(String spec, int index) {
+        int    slash  = spec.indexOf('/');
+        String host   = slash < 0 ? spec : spec.substring(0, slash);
+        int    prefix = 32;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(spec.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length: " + spec);
+            }
+        }
+
+        // Only literal addresses are accepted, so no name lookup is done
+        if (!host.matches("\\d{1,3}(\\.\\d{1,3}){3}")) {
+            throw new IllegalArgumentException("Not an IPv4 address: " + spec);
+        }
+        InetAddress address;
+        try {
+            address = InetAddress.getByName(host);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Not an IPv4 address: " + spec);
+        }
+        if (!(address instanceof Inet4Address)) {
+            throw new IllegalArgumentException("Not an IPv4 address: " + spec);
+        }
+        if (prefix < 0 || prefix > 32) {
+            throw new IllegalArgumentException("Invalid prefix length: " + spec);
+        }
+
+        long value = toLong(address.getAddress());
+        long mask  = prefix == 0 ? 0L : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        long first = value & mask;
+        long last  = first | (~mask & 0xFFFFFFFFL);
+        if (prefix < 31) {
+            // network and broadcast address
+            first++;
+            last--;
+        }
+        firsts[index] = first;
+        lasts[index]  = last;
+    }
+
+    /**
+     * Returns the amount of target addresses.
+     *
+     * @return the host count
+     */
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < firsts.length; i++) {
+            size += lasts[i] - firsts[i] + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the amount of packets per second.
+     *
+     * @return the rate
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns the maximum amount of packets sent back-to-back.
+     *
+     * @return the burst size
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Sends every payload to every target address on the given port. The
+     * packets are reused for all targets and only the address is replaced.
+     *
+     * @param server    the server whose channels are used for sending
+     * @param port      the target port
+     * @param cancelled checked before every target, stops the sweep when it
+     *                  returns {@code true}
+     * @param payloads  the payloads to send to each target
+     * @return the amount of sent packets
+     */
+    public long sweep(IDiscoveryServer server, int port, BooleanSupplier cancelled, byte[]... payloads) {
+        DatagramPacket[] packets = new DatagramPacket[payloads.length];
+        for (int i = 0; i < payloads.length; i++) {
+            packets[i] = new DatagramPacket(payloads[i].clone(), payloads[i].length);
+            packets[i].setPort(port);
+        }
+
+        byte[] target = new byte[4];
+        long   sent   = 0;
+        for (int i = 0; i < firsts.length; i++) {
+            for (long value = firsts[i]; value <= lasts[i]; value++) {
+                if (cancelled.getAsBoolean()) {
+                    return sent;
+                }
+
+                InetAddress address;
+                try {
+                    address = InetAddress.getByAddress(toBytes(value, target));
+                } catch (UnknownHostException e) {
+                    // unreachable: the array always has a length of 4
+                    continue;
+                }
+                for (DatagramPacket packet : packets) {
+                    acquire();
+                    packet.setAddress(address);
+                    try {
+                        if (server.sendUnicast(packet)) {
+                            sent++;
+                        }
+                    } catch (IOException e) {
+                        // No channel left to send on
+                        return sent;
+                    }
+                }
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Takes a single token from the bucket and waits until it is available.
+     */
+    private void acquire() {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokenNanos = Math.min(burst * nanosPerToken, tokenNanos + (now - lastRefill));
+            lastRefill = now;
+
+            // The token is taken now, a negative balance is the debt the
+            // caller has to wait for.
+            tokenNanos -= nanosPerToken;
+            wait = -tokenNanos;
+        }
+        while (wait > 0) {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(wait);
+            wait -= System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Converts the given IPv4 address to an unsigned integer.
+     *
+     * @param address the address bytes
+     * @return the address value
+     */
+    private static long toLong(byte[] address) {
+        return ((address[0] & 0xFFL) << 24) | ((address[1] & 0xFFL) << 16)
+                | ((address[2] & 0xFFL) << 8) | (address[3] & 0xFFL);
+    }
+
+    /**
+     * Writes the given unsigned integer into the given IPv4 address array.
+     *
+     * @param value  the address value
+     * @param target the array to write to
+     * @return the given array
+     */
+    private static byte[] toBytes(long value, byte[] target) {
+        target[0] = (byte) (value >>> 24);
+        target[1] = (byte) (value >>> 16);
+        target[2] = (byte) (value >>> 8);
+        target[3] = (byte) value;
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return "SubnetSweep{ranges=" + String.join(", ", specs) + ", hosts=" + size()
+                + ", rate=" + rate + ", burst=" + burst + "}";
+    }
+}
@@ -0,0 +1,184 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of fixed-size receive buffers (slabs).
+ * <p>
+ * Every received packet is read into its own leased slab. The slab is
+ * handed over to the parsed {@link IUbntService} (see
+ * {@link IUbntService#attach(UbntBufferPool, ByteBuffer)}), so the raw
+ * bytes of its {@link IUbntService.Record}s stay valid until the service
+ * is discarded via {@link IUbntService#release()} or copied out via
+ * {@link IUbntService#detach()}. Packets that don't produce a service
+ * simply keep using the same slab.
+ * <p>
+ * Leasing and releasing don't allocate once the pool is warmed up. If the
+ * pool is empty, a new slab is created (counted as a miss); if it is full,
+ * released slabs are left to the garbage collector.
+ *
+ * @see IDiscoveryServer
+ */
+public final class UbntBufferPool {
+
+    /**
+     * The default size of a single slab in bytes.
+     */
+    public static final int DEFAULT_SLAB_SIZE = 1024;
+
+    /**
+     * The default amount of slabs kept in a pool.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * All slabs that are currently available.
+     */
+    private final BlockingQueue<ByteBuffer> slabs;
+
+    /**
+     * The size of every slab in bytes.
+     */
+    private final int slabSize;
+
+    /**
+     * Whether new slabs are allocated as direct buffers.
+     */
+    private final boolean direct;
+
+    /**
+     * The amount of leases served by an available slab.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * The amount of leases that required a new slab.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * The amount of slabs returned to this pool.
+     */
+    private final AtomicLong releases = new AtomicLong();
+
+    /**
+     * Creates a new pool with the default slab size and capacity.
+     */
+    public UbntBufferPool() {
+        this(DEFAULT_SLAB_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param slabSize the size of every slab in bytes
+     * @param capacity the maximum amount of slabs kept in this pool
+     */
+    public UbntBufferPool(int slabSize, int capacity) {
+        this(slabSize, capacity, false);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param slabSize the size of every slab in bytes
+     * @param capacity the maximum amount of slabs kept in this pool
+     * @param direct   whether slabs should be allocated as direct buffers
+     */
+    public UbntBufferPool(int slabSize, int capacity, boolean direct) {
+        if (slabSize <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("slabSize and capacity must be positive");
+        }
+        this.slabSize = slabSize;
+        this.direct   = direct;
+        this.slabs    = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Leases a cleared slab from this pool. Unless this pool allocates
+     * direct buffers, the returned buffer is backed by an accessible array.
+     *
+     * @return the leased slab
+     */
+    public ByteBuffer lease() {
+        ByteBuffer slab = slabs.poll();
+        if (slab != null) {
+            hits.incrementAndGet();
+            return slab;
+        }
+        misses.incrementAndGet();
+        return direct ? ByteBuffer.allocateDirect(slabSize) : ByteBuffer.allocate(slabSize);
+    }
+
+    /**
+     * Returns the given slab to this pool. Slabs of a different size or
+     * kind are ignored. The slab must not be used after this call.
+     *
+     * @param slab the slab to release
+     */
+    public void release(ByteBuffer slab) {
+        if (slab == null || slab.capacity() != slabSize || slab.isDirect() != direct) {
+            return;
+        }
+        slab.clear();
+        releases.incrementAndGet();
+        slabs.offer(slab);
+    }
+
+    /**
+     * @return the size of every slab in bytes
+     */
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * @return whether slabs are allocated as direct buffers
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * @return the amount of slabs that are currently available
+     */
+    public int getAvailable() {
+        return slabs.size();
+    }
+
+    /**
+     * @return the amount of leases served by an available slab
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the amount of leases that required a new slab
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the amount of slabs returned to this pool
+     */
+    public long getReleaseCount() {
+        return releases.get();
+    }
+
+    @Override
+    public String toString() {
+        return "UbntBufferPool{" +
+                "slabSize=" + slabSize +
+                ", direct=" + direct +
+                ", available=" + slabs.size() +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", releases=" + releases +
+                '}';
+    }
+}
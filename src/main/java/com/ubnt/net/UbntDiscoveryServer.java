@@ -2,6 +2,8 @@ package com.ubnt.net; //@date 07.12.2022
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -9,6 +11,13 @@ import java.util.logging.Logger;
 /**
  * Default server implementation for discovering ubiquiti devices in the
  * local network.
+ * <p>
+ * The system property {@code "ubnt.query.mode"} selects whether IPv4
+ * queries are sent to the broadcast address ({@code broadcast}, default),
+ * to the UBNT multicast group {@value #UBNT_MULTICAST_V4}
+ * ({@code multicast}) or to both. Multicast queries leave through the
+ * interface of every bound channel (IP_MULTICAST_IF) instead of the
+ * interface of the default route.
  *
  * @see IDiscoveryServer
  * @see IUbntService
@@ -82,10 +91,133 @@ public class UbntDiscoveryServer extends IDiscoveryServer {
     }
 
     /**
-     * Creates a new {@link IDiscoveryServer} with the given identifier.
+     * The destinations of IPv4 query packets.
+     */
+    public enum QueryMode {
+        /**
+         * Queries are sent to {@code 255.255.255.255}.
+         */
+        BROADCAST,
+
+        /**
+         * Queries are sent to {@code 233.89.188.1} on every interface.
+         */
+        MULTICAST,
+
+        /**
+         * Queries are sent to both destinations.
+         */
+        BOTH;
+
+        /**
+         * Returns the mode with the given case-insensitive name.
+         *
+         * @param name the mode name
+         * @return the mode
+         * @throws IllegalArgumentException if there is no such mode
+         */
+        public static QueryMode of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The destinations of IPv4 query packets.
+     */
+    private volatile QueryMode queryMode = QueryMode.BROADCAST;
+
+    /**
+     * The unicast sweep sent with every query or {@code null}.
+     */
+    private volatile SubnetSweep sweep;
+
+    /**
+     * Creates a new {@link IDiscoveryServer} with the given identifier. If
+     * the system property {@code "ubnt.sweep.ranges"} is set, its ranges
+     * are swept with {@code "ubnt.sweep.rate"} packets per second on every
+     * query.
      */
     public UbntDiscoveryServer() {
         super(UbntDiscoveryServer.class.getSimpleName());
+
+        String mode = System.getProperty("ubnt.query.mode");
+        if (mode != null) {
+            try {
+                setQueryMode(QueryMode.of(mode));
+            } catch (IllegalArgumentException e) {
+                dsLogger.severe("[UDS]::QueryMode(unknown=" + mode + ")");
+            }
+        }
+
+        String ranges = System.getProperty("ubnt.sweep.ranges");
+        if (ranges != null && !ranges.isBlank()) {
+            try {
+                int rate = Integer.getInteger("ubnt.sweep.rate", SubnetSweep.DEFAULT_RATE);
+                setSweep(new SubnetSweep(ranges, rate));
+            } catch (IllegalArgumentException e) {
+                dsLogger.severe("[UDS]::Sweep(" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    /**
+     * Sets the destinations of IPv4 query packets. The packets are created
+     * again on the next query.
+     *
+     * @param queryMode the query mode
+     */
+    public void setQueryMode(QueryMode queryMode) {
+        this.queryMode = Objects.requireNonNull(queryMode);
+        synchronized (packetCache) {
+            packetCache.clear();
+        }
+    }
+
+    /**
+     * Returns the destinations of IPv4 query packets.
+     *
+     * @return the query mode
+     */
+    public QueryMode getQueryMode() {
+        return queryMode;
+    }
+
+    /**
+     * Sets the unicast sweep that is sent after the broadcast queries.
+     *
+     * @param sweep the sweep or {@code null} to only send broadcast queries
+     */
+    public void setSweep(SubnetSweep sweep) {
+        this.sweep = sweep;
+    }
+
+    /**
+     * Returns the unicast sweep of this server.
+     *
+     * @return the sweep or {@code null}
+     */
+    public SubnetSweep getSweep() {
+        return sweep;
+    }
+
+    /**
+     * Sends all broadcast queries and, if configured, unicast
+     * {@link #QUERY_V1} and {@link #QUERY_V2} packets to every host of the
+     * sweep. The sweep blocks until all packets are sent or this server has
+     * finished.
+     */
+    @Override
+    public void sendAll() throws IOException {
+        super.sendAll();
+
+        SubnetSweep sweep = this.sweep;
+        if (sweep != null) {
+            long start = System.nanoTime();
+            long sent  = sweep.sweep(this, UBNT_PORT, this::isFinished, QUERY_V1, QUERY_V2);
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            dsLogger.info(() -> String.format("[UDS]::Sweep(hosts=%d, sent=%d, elapsed=%dms)", sweep.size(),
+                                              sent, elapsed));
+        }
     }
 
     /**
@@ -131,18 +263,44 @@ public class UbntDiscoveryServer extends IDiscoveryServer {
             return null;
         }
         int version = data[0];
-        dsLogger.info(String.format("[UDS]::ParsePacket(v=%#02x, rawLength=%d, from=%s)",
-                                    version, data.length, packet.getAddress()));
-
+        dsLogger.finer(() -> String.format("[UDS]::ParsePacket(v=%#02x, rawLength=%d, from=%s)",
+                                           version, packet.getLength(), packet.getAddress()));
 
         IUbntService.Parser parser = parserCache.get(version);
         if (parser == null) {
-            dsLogger.warning("[UDS]::ParsePacket(unknownVersion=" + version + ")\n");
+            dsLogger.fine(() -> "[UDS]::ParsePacket(unknownVersion=" + version + ")");
+            DiscoveryMetrics.getDefault().parseFailed(DiscoveryMetrics.ParseFailure.UNKNOWN_VERSION);
             return null;
         }
         return parser.parse(data, packet.getLength());
     }
 
+    /**
+     * Parses the remaining bytes of the given buffer and returns a service
+     * device object. The buffer is handed to the registered parser without
+     * copying it.
+     *
+     * @param buffer the packet to parse
+     * @return the service device storing the packet's values
+     */
+    @Override
+    protected IUbntService parseBuffer(ByteBuffer buffer) {
+        if (buffer == null || !buffer.hasRemaining()) {
+            return null;
+        }
+        int version = buffer.get(buffer.position());
+        dsLogger.finer(() -> String.format("[UDS]::ParseBuffer(v=%#02x, rawLength=%d)",
+                                           version, buffer.remaining()));
+
+        IUbntService.Parser parser = parserCache.get(version);
+        if (parser == null) {
+            dsLogger.fine(() -> "[UDS]::ParseBuffer(unknownVersion=" + version + ")");
+            DiscoveryMetrics.getDefault().parseFailed(DiscoveryMetrics.ParseFailure.UNKNOWN_VERSION);
+            return null;
+        }
+        return parser.parse(buffer);
+    }
+
     /**
      * Creates a new datagram socket that can send and receive packets from
      * the UDP broadcast.
@@ -158,31 +316,90 @@ public class UbntDiscoveryServer extends IDiscoveryServer {
 
         MulticastSocket socket = new MulticastSocket(socketAddress);
         socket.setBroadcast(true);
+        NetworkInterface iface = networkInterface != null ? NetworkInterface.getByName(networkInterface) : null;
+        if (iface != null) {
+            // Multicast queries leave through this interface
+            socket.setNetworkInterface(iface);
+        }
         if (address instanceof Inet4Address) {
-            socket.joinGroup(InetAddress.getByName(UBNT_MULTICAST_V4));
+            InetAddress group = InetAddress.getByName(UBNT_MULTICAST_V4);
+            if (iface != null) {
+                socket.joinGroup(new InetSocketAddress(group, 0), iface);
+            } else {
+                socket.joinGroup(group);
+            }
         }
         return socket;
     }
 
     /**
-     * Creates the needed query packets for discovery.
+     * Creates a new non-blocking datagram channel that can send and receive
+     * packets from the UDP broadcast. IPv4 channels will join the UBNT
+     * multicast group on their interface and send multicast queries
+     * through it.
+     *
+     * @param networkInterface the net interface
+     * @param address the inet address
+     * @return the newly created {@link DatagramChannel}
+     */
+    @Override
+    protected DatagramChannel getDatagramChannel(String networkInterface, InetAddress address)
+            throws IOException {
+        DatagramChannel channel = super.getDatagramChannel(networkInterface, address);
+        if (address instanceof Inet4Address) {
+            NetworkInterface iface = networkInterface != null
+                    ? NetworkInterface.getByName(networkInterface)
+                    : NetworkInterface.getByInetAddress(address);
+            if (iface != null) {
+                try {
+                    channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, iface);
+                    channel.join(InetAddress.getByName(UBNT_MULTICAST_V4), iface);
+                } catch (IOException e) {
+                    channel.close();
+                    throw e;
+                }
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Creates the needed query packets for discovery. The IPv4 destinations
+     * depend on the {@link #getQueryMode() query mode}.
      *
      * @return the collection of query packets to send
      */
     @Override
     protected Collection<DatagramPacket> createQueryPackets() throws IOException {
-        return List.of(new DatagramPacket(
-                QUERY_V1.clone(), 4,
-                InetAddress.getByAddress(BROADCAST_V4), UBNT_PORT
-        ), new DatagramPacket(
-                QUERY_V2.clone(), QUERY_V2.length,
-                InetAddress.getByAddress(BROADCAST_V4), UBNT_PORT
-        ), new DatagramPacket(
+        List<DatagramPacket> packets = new ArrayList<>(6);
+        QueryMode mode = queryMode;
+        if (mode != QueryMode.MULTICAST) {
+            packets.add(new DatagramPacket(
+                    QUERY_V1.clone(), 4,
+                    InetAddress.getByAddress(BROADCAST_V4), UBNT_PORT
+            ));
+            packets.add(new DatagramPacket(
+                    QUERY_V2.clone(), QUERY_V2.length,
+                    InetAddress.getByAddress(BROADCAST_V4), UBNT_PORT
+            ));
+        }
+        if (mode != QueryMode.BROADCAST) {
+            packets.add(new DatagramPacket(
+                    QUERY_V1.clone(), 4,
+                    InetAddress.getByName(UBNT_MULTICAST_V4), UBNT_PORT
+            ));
+            packets.add(new DatagramPacket(
+                    QUERY_V2.clone(), QUERY_V2.length,
+                    InetAddress.getByName(UBNT_MULTICAST_V4), UBNT_PORT
+            ));
+        }
+        packets.addAll(List.of(new DatagramPacket(
                 QUERY_V1.clone(), 4,
                 InetAddress.getByAddress(BROADCAST_V6), UBNT_PORT
         ), new DatagramPacket(
                 QUERY_V2.clone(), QUERY_V2.length,
                 InetAddress.getByAddress(BROADCAST_V6), UBNT_PORT
-        ));
+        )));
+        return packets;
     }
 }
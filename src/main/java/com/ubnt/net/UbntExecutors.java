@@ -0,0 +1,123 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Provides the executor that runs all blocking work of this tool: the
+ * receive loops of every {@link IDiscoveryServer} channel, query bursts,
+ * asynchronous listeners and imports.
+ * <p>
+ * By default, this is a cached pool of daemon threads. If the system
+ * property {@code "ubnt.threads.virtual"} is set to {@code true} and the
+ * running JDK supports virtual threads, every task runs on its own virtual
+ * thread instead. As this tool is built for Java 13, virtual threads are
+ * created reflectively. Another executor can be injected with
+ * {@link #setDefault(ExecutorService)} before any server is created.
+ */
+public final class UbntExecutors {
+
+    /**
+     * The logger of this class.
+     */
+    private static final Logger logger = Logger.getLogger(UbntExecutors.class.getSimpleName());
+
+    /**
+     * The executor returned by {@link #getDefault()}.
+     */
+    private static volatile ExecutorService defaultExecutor;
+
+    /**
+     * Whether the {@link #defaultExecutor} uses virtual threads.
+     */
+    private static volatile boolean virtual;
+
+    private UbntExecutors() {}
+
+    /**
+     * Returns the shared executor and creates it on first use.
+     *
+     * @return the shared executor
+     */
+    public static ExecutorService getDefault() {
+        ExecutorService executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (UbntExecutors.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    boolean useVirtual = System.getProperty("ubnt.threads.virtual", "false")
+                                               .equalsIgnoreCase("true");
+                    executor = useVirtual ? newVirtualThreadExecutor() : null;
+                    virtual  = executor != null;
+                    if (executor == null) {
+                        executor = newDaemonThreadPool("ubnt-worker");
+                    }
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Replaces the shared executor. The previous executor is not shut down.
+     *
+     * @param executor the new executor, {@code null} to create the default
+     *                 executor again on next use
+     */
+    public static synchronized void setDefault(ExecutorService executor) {
+        defaultExecutor = executor;
+        virtual         = false;
+    }
+
+    /**
+     * Returns whether the shared executor runs its tasks on virtual threads.
+     *
+     * @return {@code true} if virtual threads are used
+     */
+    public static boolean isVirtual() {
+        getDefault();
+        return virtual;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return the executor or {@code null} if the running JDK does not
+     *         support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) method.invoke(null);
+            logger.info("[UE]::Using virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            logger.log(Level.WARNING, "[UE]::Virtual threads are not supported by Java "
+                    + System.getProperty("java.version") + ", using platform threads", (Throwable) null);
+            return null;
+        }
+    }
+
+    /**
+     * Creates a cached thread pool whose threads are daemon threads named
+     * with the given prefix.
+     *
+     * @param prefix the thread name prefix
+     * @return the new executor
+     */
+    public static ExecutorService newDaemonThreadPool(String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(factory);
+    }
+}
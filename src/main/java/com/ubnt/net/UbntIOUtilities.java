@@ -1,5 +1,7 @@
 package com.ubnt.net; //@date 07.12.2022
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 import java.util.StringJoiner;
 import java.util.function.Function;
@@ -27,27 +29,89 @@ public class UbntIOUtilities {
         return result;
     }
 
+    /**
+     * Reads an unsigned {@code length * 8} bits big-endian value without
+     * copying the bytes into a temporary array.
+     *
+     * @param data   the buffer
+     * @param start  the start of the value
+     * @param length the amount of bytes to read (at most 8)
+     * @return an unsigned {@code length * 8} bits integer.
+     */
+    public static long parseLong(byte[] data, int start, int length) {
+        long result = 0;
+        for (int i = start; i < start + length; i++) {
+            result = (result << 8) | (data[i] & 255);
+        }
+        return result;
+    }
+
+    /**
+     * Reads an unsigned {@code length * 8} bits big-endian value from the
+     * given buffer using absolute operations.
+     *
+     * @param buffer the buffer
+     * @param start  the absolute start of the value
+     * @param length the amount of bytes to read (at most 8)
+     * @return an unsigned {@code length * 8} bits integer.
+     */
+    public static long parseLong(ByteBuffer buffer, int start, int length) {
+        long result = 0;
+        for (int i = start; i < start + length; i++) {
+            result = (result << 8) | (buffer.get(i) & 255);
+        }
+        return result;
+    }
+
+    /**
+     * Reads an unsigned 16 bits big-endian value.
+     *
+     * @param data  the buffer
+     * @param index the start of the value
+     * @return the unsigned value
+     */
+    public static int readUnsignedShort(byte[] data, int index) {
+        return ((data[index] & 255) << 8) | (data[index + 1] & 255);
+    }
+
+    /**
+     * Reads an unsigned 16 bits big-endian value with an absolute
+     * {@link ByteBuffer#getShort(int)} call, regardless of the buffer's
+     * byte order.
+     *
+     * @param buffer the buffer
+     * @param index  the absolute start of the value
+     * @return the unsigned value
+     */
+    public static int readUnsignedShort(ByteBuffer buffer, int index) {
+        short value = buffer.getShort(index);
+        if (buffer.order() != ByteOrder.BIG_ENDIAN) {
+            value = Short.reverseBytes(value);
+        }
+        return value & 0xFFFF;
+    }
+
     /**
      * Sets up all {@link RecordParser} for v1 packets.
      */
     public static void setupParsersV1() {
         Record.register(HW_ADDRESS, new IpAddressRecordParser());
         Record.register(IPINFO, new IpInfoRecordParser());
-        Record.register(FW_VERSION, String::new);
+        Record.register(FW_VERSION, new StringRecordParser());
         Record.register(ADDRESS_ENTRY, new IpAddressRecordParser());
         Record.register(MAC_ENTRY, JoiningRecordParser.macParser());
-        Record.register(USERNAME, String::new);
+        Record.register(USERNAME, new StringRecordParser());
         Record.register(SALT, new HexStringRecordParser());
         Record.register(RND_CHALLENGE, new HexStringRecordParser());
         Record.register(CHALLENGE, new HexStringRecordParser());
         Record.register(UPTIME, new IntegerRecordParser());
-        Record.register(HOSTNAME, String::new);
-        Record.register(PLATFORM, String::new);
-        Record.register(ESSID, String::new);
+        Record.register(HOSTNAME, new StringRecordParser());
+        Record.register(PLATFORM, new StringRecordParser());
+        Record.register(ESSID, new StringRecordParser());
         Record.register(WIFI_MODE, new IntegerRecordParser());
         Record.register(WEB_UI, new IntegerRecordParser());
 
-        Record.register(MODEL, String::new);
+        Record.register(MODEL, new StringRecordParser());
     }
 
     /**
@@ -59,10 +123,10 @@ public class UbntIOUtilities {
         }
         Record.register(SEQ, new IntegerRecordParser());
         Record.register(SOURCE_MAC, JoiningRecordParser.macParser());
-        Record.register(MODEL_V2, String::new);
-        Record.register(SHORT_VERSION, String::new);
-        Record.register(REQ_W, String::new);
-        Record.register(MODEL_V2, String::new);
+        Record.register(MODEL_V2, new StringRecordParser());
+        Record.register(SHORT_VERSION, new StringRecordParser());
+        Record.register(REQ_W, new StringRecordParser());
+        Record.register(MODEL_V2, new StringRecordParser());
 
         Record.register(DEFAULT, new BooleanRecordParser());
         Record.register(LOCATING, new BooleanRecordParser());
@@ -77,7 +141,10 @@ public class UbntIOUtilities {
      * @param service the service to lookup
      * @param list    the service cache
      * @return {@code null} if none was found or the discovered service
+     * @deprecated this method scans the whole list for every lookup, use a
+     *         {@link ServiceRegistry} instead.
      */
+    @Deprecated
     public static synchronized IUbntService getCachedService(
             final IUbntService service, List<IUbntService> list) {
 
@@ -137,6 +204,46 @@ public class UbntIOUtilities {
             }
             return joiner.toString();
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object parseData(ByteBuffer buffer, int start, int length) {
+            StringJoiner joiner = new StringJoiner(delimiter);
+            for (int i = start; i < (start + this.length) && i < (start + length); i++) {
+                joiner.add(wrapper.apply(buffer.get(i)).toString());
+            }
+            return joiner.toString();
+        }
+    }
+
+    public static class StringRecordParser implements RecordParser {
+
+        /**
+         * Parses the given buffer and returns the record payload wrapped into
+         * an object.
+         *
+         * @param data   the raw data
+         * @param start  the start of the record
+         * @param length the data length
+         * @return the payload as an object
+         */
+        @Override
+        public Object parseData(byte[] data, int start, int length) {
+            return new String(data, start, length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object parseData(ByteBuffer buffer, int start, int length) {
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + start, length);
+            }
+            return RecordParser.super.parseData(buffer, start, length);
+        }
     }
 
     public static class IpAddressRecordParser implements RecordParser {
@@ -157,6 +264,26 @@ public class UbntIOUtilities {
             }
             return joiner.toString();
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object parseData(ByteBuffer buffer, int start, int length) {
+            StringJoiner joiner = new StringJoiner(".");
+            for (int i = start; i < start + 4; i++) {
+                joiner.add(String.valueOf(Byte.toUnsignedInt(buffer.get(i))));
+            }
+            return joiner.toString();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getMinimumLength() {
+            return 4;
+        }
     }
 
     public static class HexStringRecordParser implements RecordParser {
@@ -180,6 +307,20 @@ public class UbntIOUtilities {
             }
             return builder.toString();
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object parseData(ByteBuffer buffer, int start, int length) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = start; i < start + length; i++) {
+                String s = Integer.toHexString(buffer.get(i)).toUpperCase();
+                if (s.length() == 1) s = "0" + s;
+                builder.append(s);
+            }
+            return builder.toString();
+        }
     }
 
     public static class IntegerRecordParser implements RecordParser {
@@ -195,9 +336,15 @@ public class UbntIOUtilities {
          */
         @Override
         public Object parseData(byte[] data, int start, int length) {
-            byte[] buf = new byte[length];
-            System.arraycopy(data, start, buf, 0, length);
-            return parseInt(buf);
+            return parseLong(data, start, length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object parseData(ByteBuffer buffer, int start, int length) {
+            return parseLong(buffer, start, length);
         }
     }
 
@@ -216,6 +363,22 @@ public class UbntIOUtilities {
         public Object parseData(byte[] data, int start, int length) {
             return data[start] == 1;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object parseData(ByteBuffer buffer, int start, int length) {
+            return buffer.get(start) == 1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getMinimumLength() {
+            return 1;
+        }
     }
 
     public static class IpInfoRecordParser implements RecordParser {
@@ -234,12 +397,30 @@ public class UbntIOUtilities {
          */
         @Override
         public Object parseData(byte[] data, int start, int length) {
-            //maybe validate length
             return new IpInfo(
                     (String) macParser.parseData(data, start, 6),
                     (String) ipParser.parseData(data, start + 6, 4)
             );
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object parseData(ByteBuffer buffer, int start, int length) {
+            return new IpInfo(
+                    (String) macParser.parseData(buffer, start, 6),
+                    (String) ipParser.parseData(buffer, start + 6, 4)
+            );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getMinimumLength() {
+            return 10;
+        }
     }
 
 }
@@ -0,0 +1,270 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import com.ubnt.xml.RecordClass;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+/**
+ * Reads snapshots written by {@link UbntSnapshotWriter}. The file is mapped
+ * into memory and every stored frame is handed to the
+ * {@link IUbntService.Parser} registered for its version (see
+ * {@link UbntDiscoveryServer#ofVersion(int)}) without copying it, so the
+ * records of the returned services reference the mapped file.
+ * <pre>
+ * try (UbntSnapshotReader reader = new UbntSnapshotReader(file)) {
+ *     IUbntService service;
+ *     while ((service = reader.next()) != null) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @see UbntSnapshotWriter
+ */
+public class UbntSnapshotReader implements Closeable {
+
+    /**
+     * The logger of this class.
+     */
+    private static final Logger logger = Logger.getLogger(UbntSnapshotReader.class.getSimpleName());
+
+    /**
+     * The size of the snapshot header in bytes.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The mapped snapshot.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The format version of the snapshot.
+     */
+    private final int formatVersion;
+
+    /**
+     * The time the snapshot has been created in milliseconds.
+     */
+    private final long created;
+
+    /**
+     * The timestamp of the last returned service.
+     */
+    private long timestamp;
+
+    /**
+     * The amount of entries that could not be parsed.
+     */
+    private int skipped;
+
+    /**
+     * Maps the given file and reads its header.
+     *
+     * @param file the snapshot file
+     * @throws IOException if the file could not be mapped or is not a
+     *                     supported snapshot
+     */
+    public UbntSnapshotReader(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + channel.size() + " bytes");
+            }
+            // The mapping stays valid after the channel has been closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != UbntSnapshotWriter.MAGIC) {
+            throw new IOException("Not a snapshot: " + file);
+        }
+        formatVersion = buffer.getShort() & 0xFFFF;
+        if (formatVersion > UbntSnapshotWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version: " + formatVersion);
+        }
+        buffer.getShort(); // flags
+        created = buffer.getLong();
+    }
+
+    /**
+     * Returns whether the given file starts with the snapshot magic bytes.
+     *
+     * @param file the file to check
+     * @return {@code true} if the file is a snapshot
+     */
+    public static boolean isSnapshot(File file) {
+        try (InputStream stream = new FileInputStream(file)) {
+            byte[] magic = stream.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == UbntSnapshotWriter.MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses the next entry.
+     *
+     * @return the next service or {@code null} if all entries have been read
+     * @throws IOException if the snapshot is truncated or malformed
+     */
+    public IUbntService next() throws IOException {
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Truncated snapshot entry at " + (buffer.position() - 4));
+            }
+            int end = buffer.position() + length;
+            try {
+                IUbntService service = readEntry(end);
+                if (service != null) {
+                    return service;
+                }
+                skipped++;
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed snapshot entry at " + (end - length - 4), e);
+            } finally {
+                buffer.position(end);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the entry at the current position.
+     *
+     * @param end the end of the entry
+     * @return the service or {@code null} if the frame could not be parsed
+     * @throws IOException if the entry is malformed
+     */
+    private IUbntService readEntry(int end) throws IOException {
+        timestamp = buffer.getLong();
+
+        InetAddress address = null;
+        int addressLength = buffer.get() & 0xFF;
+        if (addressLength > 0) {
+            byte[] raw = new byte[addressLength];
+            buffer.get(raw);
+            address = InetAddress.getByAddress(raw);
+        }
+
+        String networkInterface = null;
+        int nameLength = buffer.getShort() & 0xFFFF;
+        if (nameLength != 0xFFFF) {
+            networkInterface = readString(nameLength);
+        }
+
+        int frameLength = buffer.getInt();
+        if (frameLength < 4 || buffer.position() + frameLength > end) {
+            throw new IOException("Invalid frame length: " + frameLength);
+        }
+        ByteBuffer frame = buffer.duplicate();
+        frame.limit(buffer.position() + frameLength);
+        buffer.position(buffer.position() + frameLength);
+
+        int version = frame.get(frame.position());
+        IUbntService.Parser parser = UbntDiscoveryServer.ofVersion(version);
+        IUbntService service = parser == null ? null : parser.parse(frame);
+        if (service == null) {
+            logger.warning("[USR]::Next(Skipping entry with version=" + version + ")");
+            return null;
+        }
+        service.setSourceAddress(address);
+        service.setNetworkInterface(networkInterface);
+
+        int textCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < textCount; i++) {
+            int         type   = buffer.get();
+            RecordClass cls    = RecordClass.values()[buffer.get()];
+            String      value  = readString(buffer.getShort() & 0xFFFF);
+
+            IUbntService.Record record = new IUbntService.Record(type, 0, 0, null);
+            record.setPayload(cls.getPayload(value));
+            service.add(record);
+        }
+        return service;
+    }
+
+    /**
+     * Reads a UTF-8 string with the given length.
+     *
+     * @param length the length in bytes
+     * @return the string
+     */
+    private String readString(int length) {
+        byte[] raw = new byte[length];
+        buffer.get(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads all remaining entries and notifies the given listener about
+     * them.
+     *
+     * @param listener the listener to notify
+     * @return the amount of read services
+     * @throws IOException if the snapshot is truncated or malformed
+     */
+    public int readAll(IDiscoveryListener listener) throws IOException {
+        int count = 0;
+        IUbntService service;
+        while ((service = next()) != null) {
+            listener.onServiceLocated(service);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the timestamp of the service returned by the last call of
+     * {@link #next()}.
+     *
+     * @return the time the service has been seen in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the time the snapshot has been created.
+     *
+     * @return the creation time in milliseconds
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns the format version of the snapshot.
+     *
+     * @return the format version
+     */
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    /**
+     * Returns the amount of entries that could not be parsed, because no
+     * parser is registered for their version or their frame is malformed.
+     *
+     * @return the skipped entry count
+     */
+    public int getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * Does nothing, as the mapping is released once all services read from
+     * it have been discarded.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,237 @@
+package com.ubnt.net; //@date 16.10.2026
+
+import com.ubnt.xml.RecordClass;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@link IUbntService} objects into the binary snapshot format read
+ * by {@link UbntSnapshotReader}. Instead of converting every record to
+ * text, the discovery frame of each service is rebuilt from the raw bytes
+ * of its records, so reading a snapshot is the same as parsing received
+ * packets.
+ * <p>
+ * All values are stored in network byte order:
+ * <pre>
+ * header  := MAGIC(4) formatVersion(u16) flags(u16) created(i64)
+ * entry   := entryLength(u32) timestamp(i64)
+ *            addressLength(u8) address(addressLength)
+ *            interfaceLength(u16, 0xFFFF = null) interface(UTF-8)
+ *            frameLength(u32) frame(frameLength)
+ *            textCount(u16) textRecord(textCount)
+ * frame   := version(u8) command(u8) dataLength(u16) (type(u8) length(u16) value)*
+ * textRecord := type(u8) class(u8) length(u16) value(UTF-8)
+ * </pre>
+ * Records without raw bytes, for instance records imported from XML, are
+ * stored as text records together with their {@link RecordClass}. The
+ * command byte of the original packet is not known and always {@code 0}.
+ *
+ * @see UbntSnapshotReader
+ */
+public class UbntSnapshotWriter implements Closeable, Flushable {
+
+    /**
+     * The magic bytes at the start of every snapshot ({@code "UBSN"}).
+     */
+    public static final int MAGIC = 0x5542534E;
+
+    /**
+     * The current version of the snapshot format.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * The file name extension of snapshots.
+     */
+    public static final String EXTENSION = ".ubsn";
+
+    /**
+     * The stream all entries are written to.
+     */
+    private final DataOutputStream stream;
+
+    /**
+     * The buffer of the current entry, needed to write its length first.
+     */
+    private final ByteArrayOutputStream entry = new ByteArrayOutputStream(1024);
+
+    /**
+     * The buffer of the current frame, needed to write its length first.
+     */
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream(1024);
+
+    /**
+     * The amount of written services.
+     */
+    private int count;
+
+    /**
+     * Creates a new {@link UbntSnapshotWriter} that writes to the given
+     * file.
+     *
+     * @param file the destination file
+     * @throws IOException if the file could not be opened
+     */
+    public UbntSnapshotWriter(File file) throws IOException {
+        this(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+    }
+
+    /**
+     * Creates a new {@link UbntSnapshotWriter} and writes the snapshot
+     * header. The stream is closed by {@link #close()}.
+     *
+     * @param stream the destination stream
+     * @throws IOException if the header could not be written
+     */
+    public UbntSnapshotWriter(OutputStream stream) throws IOException {
+        this.stream = new DataOutputStream(stream);
+        this.stream.writeInt(MAGIC);
+        this.stream.writeShort(FORMAT_VERSION);
+        this.stream.writeShort(0);
+        this.stream.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Writes the given service with the current time as its timestamp.
+     *
+     * @param service the service to write
+     * @return this writer
+     * @throws IOException if the service could not be written
+     */
+    public UbntSnapshotWriter append(IUbntService service) throws IOException {
+        return append(service, System.currentTimeMillis());
+    }
+
+    /**
+     * Writes the given service.
+     *
+     * @param service   the service to write
+     * @param timestamp the time the service has been seen in milliseconds
+     * @return this writer
+     * @throws IOException if the service could not be written
+     */
+    public UbntSnapshotWriter append(IUbntService service, long timestamp) throws IOException {
+        entry.reset();
+        frame.reset();
+        DataOutputStream out = new DataOutputStream(entry);
+        out.writeLong(timestamp);
+
+        InetAddress address = service.getSourceAddress();
+        byte[]      raw     = address == null ? new byte[0] : address.getAddress();
+        out.writeByte(raw.length);
+        out.write(raw);
+
+        String networkInterface = service.getInterface();
+        if (networkInterface == null) {
+            out.writeShort(0xFFFF);
+        } else {
+            byte[] name = networkInterface.getBytes(StandardCharsets.UTF_8);
+            // 0xFFFF marks a missing interface
+            writeUnsignedShort(out, name.length, 0xFFFE, "Interface name length");
+            out.write(name);
+        }
+
+        // Records with raw bytes are written into the frame, all others are
+        // written as text afterwards.
+        DataOutputStream frameOut  = new DataOutputStream(frame);
+        int              textCount = 0;
+        frameOut.writeInt(0);
+        for (IUbntService.Record record : service) {
+            if (record.hasData()) {
+                byte[] data = record.getData();
+                frameOut.writeByte(record.getType());
+                writeUnsignedShort(frameOut, data.length, 0xFFFF, "Record length");
+                frameOut.write(data);
+            } else {
+                textCount++;
+            }
+        }
+        byte[] frameBytes = frame.toByteArray();
+        int    dataLength = frameBytes.length - 4;
+        if (dataLength > 0xFFFF) {
+            throw new IOException("Frame too large: " + dataLength + " bytes");
+        }
+        frameBytes[0] = (byte) service.getPacketVersion();
+        frameBytes[1] = 0;
+        frameBytes[2] = (byte) (dataLength >>> 8);
+        frameBytes[3] = (byte) dataLength;
+        out.writeInt(frameBytes.length);
+        out.write(frameBytes);
+
+        writeUnsignedShort(out, textCount, 0xFFFF, "Record count");
+        if (textCount > 0) {
+            for (IUbntService.Record record : service) {
+                if (!record.hasData()) {
+                    Object      payload = record.getPayload();
+                    RecordClass cls     = RecordClass.getPayloadClass(payload);
+                    String      value;
+                    if (cls == RecordClass.IPINFO) {
+                        IpInfo info = (IpInfo) payload;
+                        value = info.getMAC() + ";" + info.getIP();
+                    } else {
+                        value = String.valueOf(payload);
+                    }
+                    byte[] text = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(record.getType());
+                    out.writeByte(cls.ordinal());
+                    writeUnsignedShort(out, text.length, 0xFFFF, "Record length");
+                    out.write(text);
+                }
+            }
+        }
+
+        stream.writeInt(entry.size());
+        entry.writeTo(stream);
+        count++;
+        return this;
+    }
+
+    /**
+     * Writes the given value as an unsigned short.
+     *
+     * @param out   the stream to write to
+     * @param value the value
+     * @param max   the highest allowed value
+     * @param name  the name of the value used in the exception message
+     * @throws IOException if the value is out of range and would have been
+     *                     truncated
+     */
+    private static void writeUnsignedShort(DataOutputStream out, int value, int max, String name)
+            throws IOException {
+        if (value < 0 || value > max) {
+            throw new IOException(name + " out of range: " + value);
+        }
+        out.writeShort(value);
+    }
+
+    /**
+     * Returns the amount of written services.
+     *
+     * @return the service count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Writes all buffered entries to the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        stream.flush();
+    }
+
+    /**
+     * Flushes and closes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -0,0 +1,509 @@
+package com.ubnt.ui; //@date 16.10.2026
+
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.IpInfo;
+import com.ubnt.net.UbntExecutors;
+
+import javax.swing.RowFilter;
+import javax.swing.event.*;
+import java.awt.EventQueue;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A token index over the rows of an {@link UbntUiTableModel} that answers
+ * search queries with a precomputed {@link BitSet} of matching rows.
+ * <p>
+ * The model name, IP- and MAC-Addresses, hostname, firmware version and
+ * ESSID of every row are lower-cased and stored as a whole and split at
+ * every non-alphanumeric character, e.g. {@code 172.39.0.148} is indexed as
+ * {@code 172.39.0.148}, {@code 172}, {@code 39}, {@code 0} and {@code 148}.
+ * Each token maps to the sorted indices of the rows that contain it, so a
+ * query term is answered by collecting the rows of all tokens starting with
+ * it into a {@link BitSet}, without looking at the rows at all.
+ * <p>
+ * The index follows the model through its {@link TableModelEvent}s: added
+ * and replaced rows are (re-)indexed, any other change rebuilds the index.
+ * The event dispatch thread only collects the services of the changed rows;
+ * tokenizing, updating the postings and evaluating the query happen one
+ * update after another on a thread of {@link UbntExecutors#getDefault()}.
+ * The resulting {@link BitSet} is swapped in on the event dispatch thread,
+ * after which registered {@link ChangeListener}s are notified to filter the
+ * table again. Until then, newly added rows are filtered with the previous
+ * matches.
+ *
+ * @see #getRowFilter()
+ */
+public class ServiceSearchIndex implements TableModelListener {
+
+    /**
+     * The record types that are indexed next to the model name.
+     */
+    private static final int[] TYPES = {
+            IUbntService.IPINFO, IUbntService.HOSTNAME,
+            IUbntService.FW_VERSION, IUbntService.ESSID
+    };
+
+    /**
+     * The indexed model.
+     */
+    private final UbntUiTableModel model;
+
+    /**
+     * The updates that have not been applied to the index yet.
+     */
+    private final Queue<Runnable> updates = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a thread is applying the pending {@link #updates}.
+     */
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    /**
+     * All listeners that are notified when the matches have been swapped.
+     */
+    private final EventListenerList listenerList = new EventListenerList();
+
+    /**
+     * The rows per token, sorted for prefix lookups.
+     */
+    private final NavigableMap<String, Postings> tokens = new TreeMap<>();
+
+    /**
+     * The same rows per token for exact lookups while indexing.
+     */
+    private final Map<String, Postings> lookup = new HashMap<>();
+
+    /**
+     * The tokens per row, needed to remove a replaced row from the index.
+     */
+    private final List<String[]> rowTokens = new ArrayList<>();
+
+    /**
+     * The filter matching the rows of the current query.
+     */
+    private final RowFilter<UbntUiTableModel, Integer> rowFilter = new RowFilter<>() {
+        @Override
+        public boolean include(Entry<? extends UbntUiTableModel, ? extends Integer> entry) {
+            return matches == null || matches.get(entry.getIdentifier());
+        }
+    };
+
+    /**
+     * The current query terms or {@code null} if there is no query. Only
+     * accessed while applying the {@link #updates}.
+     */
+    private String[] query;
+
+    /**
+     * Whether the last published matches were {@code null}. Only accessed
+     * while applying the {@link #updates}.
+     */
+    private boolean unfiltered = true;
+
+    /**
+     * The rows matching the current query or {@code null} if there is no
+     * query. Only accessed on the event dispatch thread.
+     */
+    private BitSet matches;
+
+    /**
+     * Creates a new index of all rows of the given model. The index has to
+     * be added as a listener of the model by the caller and must be created
+     * on the event dispatch thread.
+     *
+     * @param model the model to index
+     */
+    public ServiceSearchIndex(UbntUiTableModel model) {
+        this.model = model;
+        IUbntService[] all = servicesOf(0, model.getRowCount() - 1);
+        submit(() -> rebuild(all));
+    }
+
+    /**
+     * Collects the services of the changed rows and queues the update of
+     * the index.
+     *
+     * @param e the table model event
+     */
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow();
+        int last  = e.getLastRow();
+        if (e.getType() == TableModelEvent.DELETE || first == TableModelEvent.HEADER_ROW
+                || last == Integer.MAX_VALUE) {
+            IUbntService[] all = servicesOf(0, model.getRowCount() - 1);
+            submit(() -> rebuild(all));
+            return;
+        }
+
+        IUbntService[] changed = servicesOf(first, last);
+        submit(() -> {
+            for (int i = 0; i < changed.length; i++) {
+                index(first + i, changed[i]);
+            }
+        });
+    }
+
+    /**
+     * Sets the query of the {@link #getRowFilter() row filter}. Terms are
+     * separated by whitespace and a row matches if every term is the prefix
+     * of one of its tokens. The matches are evaluated in the background and
+     * registered listeners are notified once they are available.
+     *
+     * @param text the query, {@code null} or blank to match all rows
+     */
+    public void setQuery(String text) {
+        String   trimmed = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        String[] terms   = trimmed.isEmpty() ? null : trimmed.split("\\s+");
+        submit(() -> query = terms);
+    }
+
+    /**
+     * Returns the filter that includes all rows matching the current query.
+     * The table's row sorter has to be notified with
+     * {@link javax.swing.DefaultRowSorter#setRowFilter} whenever a
+     * {@link ChangeListener} is notified.
+     *
+     * @return the row filter
+     */
+    public RowFilter<UbntUiTableModel, Integer> getRowFilter() {
+        return rowFilter;
+    }
+
+    /**
+     * Adds a listener that is notified on the event dispatch thread after
+     * the matches of the row filter have changed.
+     *
+     * @param listener the listener
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listenerList.add(ChangeListener.class, listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        listenerList.remove(ChangeListener.class, listener);
+    }
+
+    /**
+     * Returns the current services of the given rows.
+     *
+     * @param first the first row
+     * @param last  the last row, inclusive
+     * @return the services, {@code null} for missing rows
+     */
+    private IUbntService[] servicesOf(int first, int last) {
+        IUbntService[] result = new IUbntService[Math.max(0, last - first + 1)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = model.getServiceAt(first + i);
+        }
+        return result;
+    }
+
+    /**
+     * Queues the given update and starts applying the queued updates if no
+     * other thread does.
+     *
+     * @param update the update of the index
+     */
+    private void submit(Runnable update) {
+        updates.offer(update);
+        if (updating.compareAndSet(false, true)) {
+            UbntExecutors.getDefault().execute(this::drain);
+        }
+    }
+
+    /**
+     * Applies all queued updates, evaluates the query and publishes the
+     * matches on the event dispatch thread.
+     */
+    private void drain() {
+        do {
+            Runnable update;
+            while ((update = updates.poll()) != null) {
+                update.run();
+            }
+
+            BitSet result = query == null ? null : evaluate(query);
+            if (result != null || !unfiltered) {
+                unfiltered = result == null;
+                EventQueue.invokeLater(() -> publish(result));
+            }
+            updating.set(false);
+        } while (!updates.isEmpty() && updating.compareAndSet(false, true));
+    }
+
+    /**
+     * Swaps the matches of the row filter and notifies all listeners if
+     * they have changed.
+     *
+     * @param result the new matches or {@code null}
+     */
+    private void publish(BitSet result) {
+        if (Objects.equals(matches, result)) {
+            return;
+        }
+        matches = result;
+
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener listener : listenerList.getListeners(ChangeListener.class)) {
+            listener.stateChanged(event);
+        }
+    }
+
+    /**
+     * Returns the rows matching all given terms.
+     *
+     * @param terms the lower-case query terms
+     * @return the matching rows
+     */
+    private BitSet evaluate(String[] terms) {
+        BitSet result = null;
+        for (String term : terms) {
+            BitSet rows = match(term);
+            // Terms with separators, e.g. the end of a MAC-Address, may not
+            // be the prefix of a whole value, but all of their parts are.
+            String[] parts = split(term);
+            if (rows.isEmpty() && (parts.length > 1 || parts.length == 1 && !parts[0].equals(term))) {
+                BitSet all = null;
+                for (String part : parts) {
+                    if (all == null) {
+                        all = match(part);
+                    } else {
+                        all.and(match(part));
+                    }
+                }
+                if (all != null) {
+                    rows.or(all);
+                }
+            }
+
+            if (result == null) {
+                result = rows;
+            } else {
+                result.and(rows);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new BitSet() : result;
+    }
+
+    /**
+     * Returns the rows that contain a token starting with the given prefix.
+     *
+     * @param prefix the lower-case prefix
+     * @return the matching rows
+     */
+    private BitSet match(String prefix) {
+        BitSet rows = new BitSet(rowTokens.size());
+        for (Postings postings : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            postings.addTo(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Clears the index and indexes the given rows.
+     *
+     * @param all the services of all rows
+     */
+    private void rebuild(IUbntService[] all) {
+        tokens.clear();
+        lookup.clear();
+        rowTokens.clear();
+        for (int row = 0; row < all.length; row++) {
+            index(row, all[row]);
+        }
+    }
+
+    /**
+     * Indexes the given service of a row. Only the tokens that differ from
+     * the previous service of the row are updated, which are usually none
+     * if a device has answered again.
+     *
+     * @param row     the row index
+     * @param service the service of the row
+     */
+    private void index(int row, IUbntService service) {
+        while (rowTokens.size() <= row) {
+            rowTokens.add(null);
+        }
+        String[] previous = rowTokens.get(row);
+        String[] current;
+        try {
+            current = tokenize(service);
+        } catch (RuntimeException e) {
+            // The row may have been replaced and its records released
+            // meanwhile; the replacement is indexed with the next update.
+            current = new String[0];
+        }
+        rowTokens.set(row, current);
+
+        Set<String> removed = new HashSet<>();
+        if (previous != null) {
+            Collections.addAll(removed, previous);
+        }
+        for (String token : current) {
+            if (!removed.remove(token)) {
+                Postings postings = lookup.get(token);
+                if (postings == null) {
+                    postings = new Postings();
+                    lookup.put(token, postings);
+                    tokens.put(token, postings);
+                }
+                postings.add(row);
+            }
+        }
+        for (String token : removed) {
+            Postings postings = lookup.get(token);
+            if (postings != null && postings.remove(row)) {
+                lookup.remove(token);
+                tokens.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Returns the distinct tokens of the given service.
+     *
+     * @param service the service or {@code null}
+     * @return the tokens
+     */
+    private static String[] tokenize(IUbntService service) {
+        if (service == null) {
+            return new String[0];
+        }
+
+        Set<String> result = new HashSet<>();
+        add(result, service.getModelName());
+        for (IUbntService.Record record : service) {
+            int type = record.getType();
+            for (int indexed : TYPES) {
+                if (type == indexed) {
+                    Object payload = record.getPayload();
+                    if (payload instanceof IpInfo) {
+                        add(result, ((IpInfo) payload).getIP());
+                        add(result, ((IpInfo) payload).getMAC());
+                    } else if (payload != null) {
+                        add(result, payload.toString());
+                    }
+                    break;
+                }
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Adds the given value and all of its parts as tokens.
+     *
+     * @param result the tokens
+     * @param value  the value or {@code null}
+     */
+    private static void add(Set<String> result, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        result.add(lower);
+        int start = 0;
+        for (int i = 0; i <= lower.length(); i++) {
+            if (i == lower.length() || !Character.isLetterOrDigit(lower.charAt(i))) {
+                if (i > start && (start > 0 || i < lower.length())) {
+                    result.add(lower.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Splits the given value at every non-alphanumeric character.
+     *
+     * @param value the lower-case value
+     * @return the non-empty parts
+     */
+    private static String[] split(String value) {
+        List<String> parts = new ArrayList<>(4);
+        int start = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || !Character.isLetterOrDigit(value.charAt(i))) {
+                if (i > start) {
+                    parts.add(value.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    /**
+     * The sorted indices of the rows that contain a token. Rows are mostly
+     * appended, so adding a row is usually {@code O(1)}.
+     */
+    private static final class Postings {
+
+        /**
+         * The row indices, only the first {@link #size} are used.
+         */
+        private int[] rows = new int[2];
+
+        /**
+         * The amount of rows.
+         */
+        private int size;
+
+        /**
+         * Adds the given row if it is not present.
+         *
+         * @param row the row index
+         */
+        void add(int row) {
+            int index = size > 0 && rows[size - 1] < row ? -size - 1 : Arrays.binarySearch(rows, 0, size, row);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            System.arraycopy(rows, index, rows, index + 1, size - index);
+            rows[index] = row;
+            size++;
+        }
+
+        /**
+         * Removes the given row.
+         *
+         * @param row the row index
+         * @return {@code true} if no rows are left
+         */
+        boolean remove(int row) {
+            int index = Arrays.binarySearch(rows, 0, size, row);
+            if (index >= 0) {
+                System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+                size--;
+            }
+            return size == 0;
+        }
+
+        /**
+         * Sets the bits of all rows in the given set.
+         *
+         * @param set the target
+         */
+        void addTo(BitSet set) {
+            for (int i = 0; i < size; i++) {
+                set.set(rows[i]);
+            }
+        }
+    }
+}
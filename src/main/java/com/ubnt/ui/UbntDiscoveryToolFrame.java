@@ -3,6 +3,7 @@ package com.ubnt.ui; //@date 07.12.2022
 import com.ubnt.discovery.QueryScheduler;
 import com.ubnt.discovery.UbntDiscoveryTool;
 import com.ubnt.discovery.UbntResourceBundle;
+import com.ubnt.net.DiscoveryMetrics;
 import com.ubnt.net.QueryServer;
 import com.ubnt.ui.action.*;
 import com.ubnt.ui.info.UbntServiceInfoDialog;
@@ -46,6 +47,11 @@ public class UbntDiscoveryToolFrame extends JFrame
      */
     private JTextField textFieldSearch;
 
+    /**
+     * The index answering the queries of the {@link #textFieldSearch}.
+     */
+    private ServiceSearchIndex searchIndex;
+
     /**
      * The label displaying an info text.
      */
@@ -160,8 +166,14 @@ public class UbntDiscoveryToolFrame extends JFrame
      */
     protected void setup() {
         model = new UbntServiceTableModel();
+        // A positive queue size decouples the model from the receiving threads
+        int queueSize = UbntDiscoveryTool.getInteger("ubnt.listener.queue", 0);
         for (QueryServer server : UbntDiscoveryTool.getServers()) {
-            server.addListener(model);
+            server.addListener(model, queueSize);
+        }
+        DiscoveryMetrics.register(model, "TableModel", null);
+        if (UbntDiscoveryTool.getInventory() != null) {
+            model.addAll(UbntDiscoveryTool.getInventory().getKnownServices());
         }
 
         handler = new Handler();
@@ -170,6 +182,9 @@ public class UbntDiscoveryToolFrame extends JFrame
         table = new UbntTable(model);
         table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
         table.addMouseListener(handler);
+        searchIndex = new ServiceSearchIndex(model);
+        searchIndex.addChangeListener(e -> table.setRowFilter(searchIndex.getRowFilter()));
+        model.addTableModelListener(searchIndex);
         textFieldSearch = new JTextField(18);
         textFieldSearch.getDocument().addDocumentListener(handler);
 
@@ -431,7 +446,7 @@ public class UbntDiscoveryToolFrame extends JFrame
          */
         @Override
         public void insertUpdate(DocumentEvent e) {
-
+            filter();
         }
 
         /**
@@ -443,7 +458,7 @@ public class UbntDiscoveryToolFrame extends JFrame
          */
         @Override
         public void removeUpdate(DocumentEvent e) {
-
+            filter();
         }
 
         /**
@@ -453,9 +468,14 @@ public class UbntDiscoveryToolFrame extends JFrame
          */
         @Override
         public void changedUpdate(DocumentEvent e) {
-
+            filter();
         }
 
-
+        /**
+         * Filters the table with the text of the search field.
+         */
+        private void filter() {
+            searchIndex.setQuery(textFieldSearch.getText());
+        }
     }
 }
@@ -2,39 +2,90 @@ package com.ubnt.ui; //@date 06.12.2022
 
 import com.ubnt.net.IDiscoveryListener;
 import com.ubnt.net.IUbntService;
-import com.ubnt.net.UbntIOUtilities;
+import com.ubnt.net.ServiceRegistry;
 
+import javax.swing.RowSorter;
+import javax.swing.Timer;
 import javax.swing.table.AbstractTableModel;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Abstract table model with {@link IUbntService}s as its rows.
+ * <p>
+ * Discovered services are not added on the receiving thread. They are
+ * queued and applied on the event dispatch thread at most every
+ * {@link #BATCH_INTERVAL} milliseconds, firing one event for all inserted
+ * and one for all replaced rows of a batch. That way the {@link RowSorter}
+ * of the table never sees the rows change outside of the event dispatch
+ * thread and large scans don't cause a repaint per packet.
+ * <p>
+ * The amount of rows and batches can be read with JMX through
+ * {@link UbntUiTableModelMXBean}.
  */
 public abstract class UbntUiTableModel
-        extends AbstractTableModel implements IDiscoveryListener {
+        extends AbstractTableModel implements IDiscoveryListener, UbntUiTableModelMXBean {
 
     /**
-     * The discovered services as a list == rows in this table model
+     * The discovered services by their MAC-Address == rows in this table
+     * model
      */
-    protected List<IUbntService> services;
+    protected ServiceRegistry services;
 
     /**
-     * The displayed services.
+     * The displayed services by their row index. Rows are looked up by index
+     * for every rendered cell, so an array-backed registry is used instead
+     * of a list.
      */
-    protected List<IUbntService> rows;
+    protected ServiceRegistry rows;
+
+    /**
+     * The milliseconds between two applied batches.
+     */
+    public static final int BATCH_INTERVAL = 100;
 
     /**
      * Tells whether the tools scans for services.
      */
     private volatile boolean scanning;
 
+    /**
+     * The services that have been located since the last batch.
+     */
+    private final Queue<IUbntService> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether the {@link #batchTimer} has been started for the pending
+     * services.
+     */
+    private final AtomicBoolean batchScheduled = new AtomicBoolean();
+
+    /**
+     * The timer that applies the pending services on the event dispatch
+     * thread.
+     */
+    private final Timer batchTimer;
+
+    /**
+     * The amount of applied batches.
+     */
+    private volatile long batchCount;
+
+    /**
+     * The amount of services applied with the last batch.
+     */
+    private volatile int lastBatchSize;
+
     /**
      * Creates a new table model.
      */
     public UbntUiTableModel() {
-        services = new LinkedList<>();
-        rows = new LinkedList<>();
+        services = new ServiceRegistry();
+        rows = new ServiceRegistry();
+
+        batchTimer = new Timer(BATCH_INTERVAL, e -> flush());
+        batchTimer.setRepeats(false);
     }
 
     /**
@@ -52,6 +103,7 @@ public abstract class UbntUiTableModel
     /**
      * @return whether the tools are scanning for services at the moment.
      */
+    @Override
     public synchronized boolean isScanning() {
         return scanning;
     }
@@ -66,12 +118,18 @@ public abstract class UbntUiTableModel
     }
 
     /**
-     * Clears all rows and synchronizes them with the cached services.
+     * Clears all rows and synchronizes them with the cached services. Rows
+     * that are no longer cached will be released.
      */
     public synchronized void reload() {
+        for (IUbntService row : rows) {
+            if (!services.contains(row)) {
+                row.release();
+            }
+        }
         rows.clear();
         for (IUbntService service : services) {
-            insert(service, false);
+            insert(service);
         }
         fireTableDataChanged();
     }
@@ -83,70 +141,118 @@ public abstract class UbntUiTableModel
      * @return the service at the given row
      */
     public synchronized IUbntService getServiceAt(int row) {
-        IUbntService service = null;
-        if (row >= 0 && row < rows.size()) {
-            service = rows.get(row);
-        }
-        return service;
+        return rows.getAt(row);
     }
 
     /**
-     * Invoked when a new service has been discovered.
+     * Invoked when a new service has been discovered. The service is queued
+     * and added to this model with the next batch, or released if no scan
+     * is running.
      *
      * @param service the new service
      */
     @Override
-    public synchronized void onServiceLocated(IUbntService service) {
-        if (service != null && isScanning()) {
-            IUbntService cached = UbntIOUtilities.getCachedService(service, services);
-            if (cached == null) {
-                services.add(service);
-            } else {
-                services.set(services.indexOf(cached), service);
-            }
-            insert(service, true);
+    public void onServiceLocated(IUbntService service) {
+        if (service == null) {
+            return;
+        }
+        if (!isScanning()) {
+            service.release();
+            return;
+        }
+        pending.offer(service);
+        if (batchScheduled.compareAndSet(false, true)) {
+            batchTimer.start();
         }
     }
 
     /**
-     * Inserts the given service at the end of this table model.
+     * Adds the given services with the next batch, even if no scan is
+     * running, e.g. the devices known from previous runs.
      *
-     * @param service    the service to add
-     * @param fireUpdate whether an update should be fired
+     * @param known the services to add
      */
-    private synchronized void insert(IUbntService service, boolean fireUpdate) {
-        if (service == null) {
-            return;
+    public void addAll(Collection<? extends IUbntService> known) {
+        if (!known.isEmpty()) {
+            pending.addAll(known);
+            if (batchScheduled.compareAndSet(false, true)) {
+                batchTimer.start();
+            }
         }
+    }
+
+    /**
+     * Applies all pending services and fires one event for the inserted and
+     * one for the replaced rows. Must be called on the event dispatch
+     * thread; callers that need the row count of a finished scan call this
+     * method first.
+     */
+    public void flush() {
+        batchScheduled.set(false);
 
-        IUbntService cached = UbntIOUtilities.getCachedService(service, rows);
-        if (cached == null) {
-            rows.add(service);
-            if (!fireUpdate) return;
-
-            int insertedRow = rows.size() - 1;
-            fireTableRowsInserted(insertedRow, insertedRow);
-        } else {
-            int index = rows.indexOf(cached);
-            rows.set(index, service);
-            if (!fireUpdate) return;
-
-            try {
-                if (index != rows.size()) {
-                    fireTableRowsInserted(index, index);
+        int firstInserted;
+        int lastInserted;
+        int firstUpdated = Integer.MAX_VALUE;
+        int lastUpdated  = -1;
+        synchronized (this) {
+            firstInserted = rows.size();
+            int          applied = 0;
+            IUbntService service;
+            while ((service = pending.poll()) != null) {
+                applied++;
+                services.upsert(service);
+                int index = insert(service);
+                if (index >= 0 && index < firstInserted) {
+                    firstUpdated = Math.min(firstUpdated, index);
+                    lastUpdated  = Math.max(lastUpdated, index);
                 }
-            } catch (ArrayIndexOutOfBoundsException e) {
-                // Ignore this error. NPE will be displayed as the rows'
-                // values to indicate an error occurred. THis happens when
-                // a filter is applied to the table during a scan.
             }
+            lastInserted = rows.size() - 1;
+            if (applied > 0) {
+                batchCount++;
+                lastBatchSize = applied;
+            }
+        }
+
+        if (lastUpdated >= 0) {
+            fireTableRowsUpdated(firstUpdated, lastUpdated);
+        }
+        if (lastInserted >= firstInserted) {
+            fireTableRowsInserted(firstInserted, lastInserted);
+        }
+    }
+
+    /**
+     * Inserts the given service at the end of this table model or replaces
+     * the row with the same MAC-Address. A replaced row will be released.
+     *
+     * @param service the service to add
+     * @return the index of the row or {@code -1} if nothing has been added
+     */
+    private synchronized int insert(IUbntService service) {
+        if (service == null) {
+            return -1;
+        }
+
+        long         mac      = ServiceRegistry.macOf(service);
+        IUbntService previous = rows.upsert(mac, service);
+        if (previous == null) {
+            return rows.size() - 1;
+        }
+        if (previous != service) {
+            previous.release();
         }
+        return rows.indexOf(mac);
     }
 
     /**
-     * Clears all cached services.
+     * Clears all cached services and drops the pending ones.
      */
     public synchronized void clearAll() {
+        IUbntService service;
+        while ((service = pending.poll()) != null) {
+            service.release();
+        }
         services.clear();
     }
 
@@ -163,4 +269,36 @@ public abstract class UbntUiTableModel
     public synchronized int getRowCount() {
         return rows.size();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getServiceCount() {
+        return services.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
 }
@@ -0,0 +1,38 @@
+package com.ubnt.ui; //@date 16.10.2026
+
+/**
+ * The management interface of an {@link UbntUiTableModel}, registered as
+ * {@code com.ubnt:type=TableModel}.
+ */
+public interface UbntUiTableModelMXBean {
+
+    /**
+     * @return the amount of displayed rows
+     */
+    int getRowCount();
+
+    /**
+     * @return the amount of cached services
+     */
+    int getServiceCount();
+
+    /**
+     * @return the amount of located services waiting for the next batch
+     */
+    int getPendingCount();
+
+    /**
+     * @return the amount of applied batches
+     */
+    long getBatchCount();
+
+    /**
+     * @return the amount of services applied with the last batch
+     */
+    int getLastBatchSize();
+
+    /**
+     * @return whether the tools are scanning for services at the moment
+     */
+    boolean isScanning();
+}
@@ -1,21 +1,22 @@
 package com.ubnt.ui.action; //@date 08.12.2022
 
 import com.ubnt.discovery.UbntResourceBundle;
+import com.ubnt.net.UbntSnapshotWriter;
 import com.ubnt.ui.UbntUiTableModel;
-import com.ubnt.xml.UbntServiceXMLBuilder;
-import com.ubnt.xml.UbntServiceXMLWriter;
+import com.ubnt.xml.UbntServiceXMLStreamWriter;
 
 import javax.swing.*;
-import javax.xml.parsers.ParserConfigurationException;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.io.IOException;
 
 import static com.ubnt.discovery.UbntResourceBundle.format;
 import static com.ubnt.discovery.UbntResourceBundle.getString;
 
 /**
- * Exports all services in XML format.
+ * Exports all services in XML format, or as a binary snapshot if the name of
+ * the selected file ends with {@value UbntSnapshotWriter#EXTENSION}.
  */
 public class ExportAction extends AbstractAction {
 
@@ -60,33 +61,58 @@ public class ExportAction extends AbstractAction {
             return;
         }
 
-        try {
-            UbntServiceXMLBuilder builder     = new UbntServiceXMLBuilder();
-            JFileChooser          fileChooser = new JFileChooser();
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        int result = fileChooser.showSaveDialog(parent);
 
-            fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-            int result = fileChooser.showSaveDialog(parent);
+        if (result == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            if (file != null) {
+                try {
+                    if (file.getName().endsWith(UbntSnapshotWriter.EXTENSION)) {
+                        exportSnapshot(file);
+                    } else {
+                        exportXML(file);
+                    }
+                } catch (IOException ee) {
+                    JOptionPane.showMessageDialog(parent, format("action.export.dialog.error", ee.toString()));
+                    return;
+                }
 
-            if (result == JFileChooser.APPROVE_OPTION) {
-                File file = fileChooser.getSelectedFile();
-                if (file != null) {
+                String msg = format("action.export.dialog.success", file.getName(),
+                                    file.getAbsoluteFile().getAbsolutePath());
+                JOptionPane.showMessageDialog(parent, msg);
+            }
+        }
+    }
 
-                    for (int i = 0; i < model.getRowCount(); i++) {
-                        builder.append(model.getServiceAt(i));
-                    }
+    /**
+     * Writes all services of the model as an XML document. Every service is
+     * written as soon as it is appended, so no document tree has to be built
+     * first.
+     *
+     * @param file the destination file
+     * @throws IOException if the file could not be written
+     */
+    private void exportXML(File file) throws IOException {
+        try (UbntServiceXMLStreamWriter writer = new UbntServiceXMLStreamWriter(file)) {
+            for (int i = 0; i < model.getRowCount(); i++) {
+                writer.append(model.getServiceAt(i));
+            }
+        }
+    }
 
-                    // TODO: 11.12.2022 Add error message and try-catch block
-                    if (UbntServiceXMLWriter.writeXML(file, builder.getDocument())) {
-                        String msg = format("action.export.dialog.success", file.getName(),
-                                            file.getAbsoluteFile().getAbsolutePath());
-                        builder.clear();
-                        JOptionPane.showMessageDialog(parent, msg);
-                    }
-                    System.gc();
-                }
+    /**
+     * Writes all services of the model as a binary snapshot.
+     *
+     * @param file the destination file
+     * @throws IOException if the file could not be written
+     */
+    private void exportSnapshot(File file) throws IOException {
+        try (UbntSnapshotWriter writer = new UbntSnapshotWriter(file)) {
+            for (int i = 0; i < model.getRowCount(); i++) {
+                writer.append(model.getServiceAt(i));
             }
-        } catch (ParserConfigurationException ee) {
-            JOptionPane.showMessageDialog(parent, format("action.export.dialog.error", ee.toString()));
         }
     }
 }
@@ -3,6 +3,8 @@ package com.ubnt.ui.action; //@date 08.12.2022
 import com.ubnt.discovery.UbntResourceBundle;
 import com.ubnt.net.IDiscoveryListener;
 import com.ubnt.net.IUbntService;
+import com.ubnt.net.UbntExecutors;
+import com.ubnt.net.UbntSnapshotReader;
 import com.ubnt.ui.UbntUiTableModel;
 import com.ubnt.xml.UbntServiceXMLHandler;
 import org.xml.sax.SAXException;
@@ -21,7 +23,9 @@ import java.io.InputStream;
 //TBA
 
 /**
- * Imports all services from a selected XML file.
+ * Imports all services from a selected XML file or binary snapshot (see
+ * {@link UbntSnapshotReader}). The format is detected by the first bytes of
+ * the file.
  */
 public class ImportAction extends AbstractAction
         implements IDiscoveryListener, UbntServiceXMLHandler.FinishListener {
@@ -99,9 +103,7 @@ public class ImportAction extends AbstractAction
             progressBar.setValue(0);
             count = model.getRowCount();
 
-            Thread thread = new Thread(new Importer());
-            thread.setDaemon(true);
-            thread.start();
+            UbntExecutors.getDefault().execute(new Importer());
         }
     }
 
@@ -127,6 +129,8 @@ public class ImportAction extends AbstractAction
      */
     @Override
     public void onFinish() {
+        // Services are added to the model in batches
+        model.flush();
         count = model.getRowCount() - count;
         String msg = UbntResourceBundle.format("action.import.dialog.success", String.valueOf(count));
 
@@ -151,12 +155,18 @@ public class ImportAction extends AbstractAction
          */
         @Override
         public void run() {
+            File file = fileChooser.getSelectedFile();
+            if (UbntSnapshotReader.isSnapshot(file)) {
+                importSnapshot(file);
+                return;
+            }
+
             SAXParserFactory factory = SAXParserFactory.newInstance();
             factory.setValidating(true);
 
 
             String msg = null;
-            try (InputStream stream = new FileInputStream(fileChooser.getSelectedFile())) {
+            try (InputStream stream = new FileInputStream(file)) {
                 SAXParser parser = factory.newSAXParser();
 
                 // This block is needed to ensure the loaded services will be
@@ -171,5 +181,36 @@ public class ImportAction extends AbstractAction
             }
 
         }
+
+        /**
+         * Reads all services of the given snapshot. Like the
+         * {@link UbntServiceXMLHandler}, the model is notified on the event
+         * dispatch thread.
+         *
+         * @param file the snapshot file
+         */
+        private void importSnapshot(File file) {
+            try (UbntSnapshotReader reader = new UbntSnapshotReader(file)) {
+                model.setScanning(true);
+                progressBar.setVisible(true);
+
+                IUbntService service;
+                while ((service = reader.next()) != null) {
+                    IUbntService located = service;
+                    EventQueue.invokeLater(() -> {
+                        model.onServiceLocated(located);
+                        onServiceLocated(located);
+                    });
+                }
+                EventQueue.invokeLater(ImportAction.this::onFinish);
+            } catch (IOException ex) {
+                String msg = UbntResourceBundle.format("action.import.dialog.error", ex.toString());
+                EventQueue.invokeLater(() -> {
+                    progressBar.setVisible(false);
+                    model.setScanning(false);
+                    JOptionPane.showMessageDialog(parent, msg);
+                });
+            }
+        }
     }
 }
@@ -44,10 +44,6 @@ public class ScanAction extends AbstractAction {
             model.clearAll();
         }
 
-        // Because the fireTableRowInserted() method in UbntUiTableModel causes
-        // ArrayIndexOutOfBoundsExceptions in the RowSorter class, we have to
-        // specify that all sorting keys should be cleared.
-        table.getRowSorter().setSortKeys(null);
         model.setScanning(true);
         time = System.currentTimeMillis();
         UbntDiscoveryTool.scheduleScan();
@@ -0,0 +1,205 @@
+package com.ubnt.xml; //@date 16.10.2026
+
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.IpInfo;
+import com.ubnt.net.UbntDiscoveryServer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.*;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes {@link IUbntService} objects as an {@code iubntservice.dtd}
+ * document straight to an {@link OutputStream}. In contrast to the
+ * {@link UbntServiceXMLBuilder}, no tree is kept in memory: every service is
+ * written as soon as it is appended, so the memory needed for an export
+ * doesn't depend on the amount of services.
+ * <pre>
+ * try (UbntServiceXMLStreamWriter writer = new UbntServiceXMLStreamWriter(file)) {
+ *     for (IUbntService service : services) {
+ *         writer.append(service);
+ *     }
+ * }
+ * </pre>
+ * The document is completed by {@link #close()}.
+ *
+ * @see UbntServiceXMLHandler
+ */
+public class UbntServiceXMLStreamWriter implements Closeable {
+
+    /**
+     * The factory of all stream writers.
+     */
+    private static final XMLOutputFactory factory = XMLOutputFactory.newInstance();
+
+    /**
+     * The underlying stream.
+     */
+    private final OutputStream stream;
+
+    /**
+     * The writer of the document.
+     */
+    private final XMLStreamWriter writer;
+
+    /**
+     * The amount of written services.
+     */
+    private int count;
+
+    /**
+     * Creates a new {@link UbntServiceXMLStreamWriter} that writes to the
+     * given file.
+     *
+     * @param file the destination file
+     * @throws IOException if the file could not be opened or the document
+     *                     could not be started
+     */
+    public UbntServiceXMLStreamWriter(File file) throws IOException {
+        this(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    /**
+     * Creates a new {@link UbntServiceXMLStreamWriter} and writes the start
+     * of the document. The stream is closed by {@link #close()}.
+     *
+     * @param stream the destination stream
+     * @throws IOException if the document could not be started
+     */
+    public UbntServiceXMLStreamWriter(OutputStream stream) throws IOException {
+        this.stream = stream;
+        try {
+            writer = factory.createXMLStreamWriter(
+                    new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)));
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.writeCharacters("\n");
+            writer.writeDTD("<!DOCTYPE iubntservice SYSTEM \"iubntservice.dtd\">");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("iubntservice");
+            newLine(1);
+            writer.writeStartElement("services");
+        } catch (XMLStreamException e) {
+            stream.close();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes the given service at the end of the service list.
+     *
+     * @param service the service to write
+     * @return this writer
+     * @throws IOException if the service could not be written
+     */
+    public UbntServiceXMLStreamWriter append(IUbntService service) throws IOException {
+        try {
+            newLine(2);
+            writer.writeStartElement("service");
+
+            InetAddress source = service.getSourceAddress();
+            String      address;
+            if (source != null) {
+                address = source.getHostAddress();
+            } else {
+                IUbntService.Record record = service.get(IUbntService.IPINFO);
+                address = UbntDiscoveryServer.UBNT_MULTICAST_V4;
+                if (record != null) {
+                    address = ((IpInfo) record.getPayload()).getIP();
+                }
+            }
+            element("address", address);
+            // Services of the wildcard channel don't have an interface
+            element("interface", String.valueOf(service.getInterface()));
+            element("version", String.valueOf(service.getPacketVersion()));
+
+            newLine(3);
+            writer.writeStartElement("records");
+            for (IUbntService.Record record : service) {
+                Object      payload = record.getPayload();
+                RecordClass cls     = RecordClass.getPayloadClass(payload);
+
+                newLine(4);
+                writer.writeStartElement("record");
+                writer.writeAttribute("type", String.valueOf(record.getType()));
+                if (cls != RecordClass.STRING) {
+                    writer.writeAttribute("class", cls.name());
+                }
+                if (cls == RecordClass.IPINFO) {
+                    IpInfo info = (IpInfo) payload;
+                    writer.writeCharacters(info.getMAC() + ";" + info.getIP());
+                } else {
+                    writer.writeCharacters(String.valueOf(payload));
+                }
+                writer.writeEndElement();
+            }
+            newLine(3);
+            writer.writeEndElement();
+
+            newLine(2);
+            writer.writeEndElement();
+            count++;
+            return this;
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns the amount of written services.
+     *
+     * @return the service count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Writes a simple element on its own line.
+     *
+     * @param name  the element name
+     * @param value the text content
+     * @throws XMLStreamException if the element could not be written
+     */
+    private void element(String name, String value) throws XMLStreamException {
+        newLine(3);
+        writer.writeStartElement(name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Starts a new line with the given indentation.
+     *
+     * @param depth the indentation depth
+     * @throws XMLStreamException if the line could not be written
+     */
+    private void newLine(int depth) throws XMLStreamException {
+        writer.writeCharacters("\n" + "    ".repeat(depth));
+    }
+
+    /**
+     * Completes the document and closes the underlying stream.
+     *
+     * @throws IOException if the document could not be completed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            newLine(1);
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            stream.close();
+        }
+    }
+}
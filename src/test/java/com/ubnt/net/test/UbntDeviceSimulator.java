@@ -0,0 +1,491 @@
+package com.ubnt.net.test; //@date 16.10.2026
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.ubnt.net.BaseServiceParser;
+import com.ubnt.net.IDiscoveryServer;
+import com.ubnt.net.IUbntService;
+import com.ubnt.net.ServiceRegistry;
+import com.ubnt.net.UbntDiscoveryServer;
+import com.ubnt.net.UbntIOUtilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import static com.ubnt.net.IUbntService.*;
+
+/**
+ * Simulates a configurable amount of devices that answer {@code QUERY_V1}
+ * and {@code QUERY_V2} packets with synthetic responses. Every query is
+ * answered with one response per device, optionally rate limited, sent in
+ * bursts and mixed with malformed or duplicated frames.
+ * <p>
+ * Started without {@code -serve}, this class runs a soak test: an
+ * {@link UbntDiscoveryServer} bound to the loopback interface queries the
+ * simulator several times and the throughput and packet loss are reported.
+ * <pre>
+ *     UbntDeviceSimulator -devices 5000 -rate 20000 -malformed 0.01 -duplicates 0.05
+ * </pre>
+ */
+public class UbntDeviceSimulator implements Runnable, Closeable {
+
+    /**
+     * The base of all simulated MAC-Addresses.
+     */
+    private static final long MAC_BASE = 0x802AA8000000L;
+
+    /**
+     * The simulator options.
+     */
+    private final Options options;
+
+    /**
+     * The socket queries are received on.
+     */
+    private final DatagramSocket socket;
+
+    /**
+     * The generator deciding which frames are malformed or duplicated.
+     */
+    private final Random random;
+
+    /**
+     * The number of received queries.
+     */
+    private final AtomicLong queries = new AtomicLong();
+
+    /**
+     * The number of sent well-formed responses, including duplicates.
+     */
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * The number of sent malformed responses.
+     */
+    private final AtomicLong malformed = new AtomicLong();
+
+    /**
+     * The number of sent duplicates.
+     */
+    private final AtomicLong duplicates = new AtomicLong();
+
+    /**
+     * The number of responses that could not be sent.
+     */
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * The sequence number of the next answered query.
+     */
+    private int sequence;
+
+    /**
+     * Creates a new simulator bound to the configured address and port.
+     *
+     * @param options the simulator options
+     * @throws IOException if the socket could not be bound
+     */
+    public UbntDeviceSimulator(Options options) throws IOException {
+        this.options = options;
+        this.random  = new Random(options.seed);
+        this.socket  = new DatagramSocket(null);
+        socket.setReuseAddress(true);
+        socket.setBroadcast(true);
+        socket.setSendBufferSize(1 << 20);
+        socket.bind(new InetSocketAddress(InetAddress.getByName(options.address), options.port));
+    }
+
+    /**
+     * Answers all received queries until this simulator has been closed.
+     */
+    @Override
+    public void run() {
+        byte[] buffer = new byte[64];
+        DatagramPacket query = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                query.setLength(buffer.length);
+                socket.receive(query);
+                if (query.getLength() != 4 || (buffer[0] != 1 && buffer[0] != 2)) {
+                    continue;
+                }
+                queries.incrementAndGet();
+                answer(buffer[0], query.getSocketAddress());
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    errors.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends one response per simulated device to the given address.
+     *
+     * @param version the queried packet version
+     * @param target  the sender of the query
+     */
+    private void answer(int version, SocketAddress target) {
+        final int  seq   = ++sequence;
+        final long start = System.nanoTime();
+        long count = 0;
+        for (int device = 0; device < options.devices && !socket.isClosed(); device++) {
+            byte[] frame = version == 1 ? frameV1(device, seq) : frameV2(device, seq);
+            if (random.nextDouble() < options.malformed) {
+                frame = corrupt(frame);
+                malformed.incrementAndGet();
+            } else {
+                sent.incrementAndGet();
+                if (random.nextDouble() < options.duplicates) {
+                    send(frame, target);
+                    sent.incrementAndGet();
+                    duplicates.incrementAndGet();
+                    count++;
+                }
+            }
+            send(frame, target);
+            count++;
+
+            if (options.rate > 0 && (device + 1) % options.burst == 0) {
+                // Sleep until the average rate matches the configured one
+                long due = start + count * TimeUnit.SECONDS.toNanos(1) / options.rate;
+                long delay = due - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the given frame and counts failures.
+     *
+     * @param frame  the frame to send
+     * @param target the destination
+     */
+    private void send(byte[] frame, SocketAddress target) {
+        try {
+            socket.send(new DatagramPacket(frame, frame.length, target));
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a malformed copy of the given frame. The frame either declares
+     * a wrong length, contains a truncated record, contains a record shorter
+     * than its fixed width or uses an unknown version.
+     *
+     * @param frame the well-formed frame
+     * @return the malformed frame
+     */
+    private byte[] corrupt(byte[] frame) {
+        byte[] copy = frame.clone();
+        switch (random.nextInt(4)) {
+            case 0: {
+                int length = UbntIOUtilities.readUnsignedShort(copy, 2) + 1;
+                copy[2] = (byte) (length >> 8);
+                copy[3] = (byte) length;
+                break;
+            }
+            case 1: {
+                // The first record claims more bytes than available
+                copy[5] = (byte) 0xFF;
+                copy[6] = (byte) 0xFF;
+                break;
+            }
+            case 2: {
+                // The first record (IPINFO) keeps 3 of its 10 bytes, but the
+                // lengths of the frame and the record stay consistent
+                byte[] shorter = new byte[copy.length - 7];
+                System.arraycopy(copy, 0, shorter, 0, 10);
+                System.arraycopy(copy, 17, shorter, 10, copy.length - 17);
+                shorter[5] = 0;
+                shorter[6] = 3;
+                int length = shorter.length - 4;
+                shorter[2] = (byte) (length >> 8);
+                shorter[3] = (byte) length;
+                return shorter;
+            }
+            default: {
+                copy[0] = 0x7F;
+                break;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Creates the version 1 response of the given device.
+     *
+     * @param device the device index
+     * @param seq    the query sequence number
+     * @return the raw frame
+     */
+    private byte[] frameV1(int device, int seq) {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(192);
+        commonRecords(records, device, seq);
+        record(records, ESSID, "sim-" + (device & 0xF));
+        record(records, WIFI_MODE, new byte[]{2});
+        record(records, WEB_UI, new byte[]{0, 1, 0, 80});
+        record(records, MODEL, "LBE-5AC-Gen2");
+        return frame(1, records);
+    }
+
+    /**
+     * Creates the version 2 response of the given device.
+     *
+     * @param device the device index
+     * @param seq    the query sequence number
+     * @return the raw frame
+     */
+    private byte[] frameV2(int device, int seq) {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(256);
+        commonRecords(records, device, seq);
+        record(records, SHORT_VERSION, "6.0.21.13673");
+        record(records, MODEL_V2, "U7PG2");
+        record(records, DEFAULT, new byte[]{0});
+        record(records, LOCATING, new byte[]{0});
+        record(records, DHCPC, new byte[]{1});
+        record(records, DHCPC_BOUND, new byte[]{1});
+        record(records, SOURCE_MAC, mac(device));
+        record(records, SEQ, new byte[]{(byte) (seq >>> 24), (byte) (seq >>> 16), (byte) (seq >>> 8), (byte) seq});
+        record(records, REQ_W, "3.4.1");
+        return frame(2, records);
+    }
+
+    /**
+     * Writes all records both packet versions share.
+     *
+     * @param records the record stream
+     * @param device  the device index
+     * @param seq     the query sequence number
+     */
+    private void commonRecords(ByteArrayOutputStream records, int device, int seq) {
+        byte[] mac = mac(device);
+        byte[] ip  = {10, (byte) (device >>> 16), (byte) (device >>> 8), (byte) device};
+        byte[] info = new byte[10];
+        System.arraycopy(mac, 0, info, 0, 6);
+        System.arraycopy(ip, 0, info, 6, 4);
+
+        int uptime = 3600 + device + seq * 10;
+        record(records, IPINFO, info);
+        record(records, HW_ADDRESS, mac);
+        record(records, UPTIME, new byte[]{(byte) (uptime >>> 24), (byte) (uptime >>> 16),
+                (byte) (uptime >>> 8), (byte) uptime});
+        record(records, HOSTNAME, String.format("sim-%05d", device));
+        record(records, PLATFORM, "U7PG2");
+        record(records, FW_VERSION, "BZ.qca956x_6.0.21+13673.220607.2004");
+    }
+
+    /**
+     * Returns the MAC-Address of the given device.
+     *
+     * @param device the device index
+     * @return the MAC-Address bytes
+     */
+    private static byte[] mac(int device) {
+        long   mac   = MAC_BASE + device;
+        byte[] bytes = new byte[6];
+        for (int i = 0; i < 6; i++) {
+            bytes[i] = (byte) (mac >>> (40 - i * 8));
+        }
+        return bytes;
+    }
+
+    private static void record(ByteArrayOutputStream stream, int type, String value) {
+        record(stream, type, value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void record(ByteArrayOutputStream stream, int type, byte[] value) {
+        stream.write(type);
+        stream.write(value.length >> 8);
+        stream.write(value.length);
+        stream.writeBytes(value);
+    }
+
+    private static byte[] frame(int version, ByteArrayOutputStream records) {
+        byte[] data  = records.toByteArray();
+        byte[] frame = new byte[data.length + 4];
+        frame[0] = (byte) version;
+        frame[2] = (byte) (data.length >> 8);
+        frame[3] = (byte) data.length;
+        System.arraycopy(data, 0, frame, 4, data.length);
+        return frame;
+    }
+
+    /**
+     * Returns the address this simulator is bound to.
+     *
+     * @return the local socket address
+     */
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) socket.getLocalSocketAddress();
+    }
+
+    /**
+     * Stops this simulator.
+     */
+    @Override
+    public void close() {
+        socket.close();
+    }
+
+    /**
+     * Returns all counters in a human-readable form.
+     *
+     * @return the counters
+     */
+    @Override
+    public String toString() {
+        return "UbntDeviceSimulator{queries=" + queries + ", sent=" + sent + ", malformed=" + malformed
+                + ", duplicates=" + duplicates + ", errors=" + errors + "}";
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        JCommander commander = JCommander.newBuilder().addObject(options).build();
+        commander.parse(args);
+        if (options.help) {
+            commander.usage();
+            return;
+        }
+
+        try (UbntDeviceSimulator simulator = new UbntDeviceSimulator(options)) {
+            Thread thread = new Thread(simulator, "UbntDeviceSimulator");
+            thread.setDaemon(true);
+            thread.start();
+            System.out.println("Simulating " + options.devices + " devices on " + simulator.getLocalAddress());
+
+            if (options.serve) {
+                thread.join();
+            } else {
+                soak(simulator, options);
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Queries the simulator with a loopback {@link UbntDiscoveryServer} and
+     * prints the throughput and packet loss.
+     *
+     * @param simulator the running simulator
+     * @param options   the simulator options
+     * @throws Exception if the server could not be created
+     */
+    private static void soak(UbntDeviceSimulator simulator, Options options) throws Exception {
+        System.setProperty("ubnt.nio.enabled", String.valueOf(options.nio));
+        UbntIOUtilities.setupParsersV2();
+        IDiscoveryServer.idsLogger.setLevel(Level.OFF);
+        UbntDiscoveryServer.dsLogger.setLevel(Level.OFF);
+        BaseServiceParser.vXLogger.setLevel(Level.OFF);
+
+        ServiceRegistry registry = new ServiceRegistry();
+        AtomicLong received = new AtomicLong();
+
+        UbntDiscoveryServer server = new LoopbackServer();
+        server.addListener(service -> {
+            received.incrementAndGet();
+            IUbntService previous = registry.upsert(service);
+            if (previous != null) {
+                previous.release();
+            }
+        });
+        Thread serverThread = new Thread(server);
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        InetSocketAddress target = simulator.getLocalAddress();
+        long start = System.nanoTime();
+        for (int i = 0; i < options.queries; i++) {
+            byte[] query = i % 2 == 0 ? UbntDiscoveryServer.QUERY_V1 : UbntDiscoveryServer.QUERY_V2;
+            server.send(new DatagramPacket(query.clone(), query.length, target));
+            Thread.sleep(options.interval);
+        }
+        Thread.sleep(options.drain);
+
+        long   elapsed  = System.nanoTime() - start;
+        double seconds  = elapsed / 1e9;
+        long   expected = simulator.sent.get();
+        long   got      = received.get();
+        server.doFinish();
+
+        System.out.println(simulator);
+        System.out.printf("received=%d/%d (loss=%.2f%%), devices=%d/%d, throughput=%.0f packets/s, "
+                                  + "elapsed=%.2fs, pool=%s%n",
+                          got, expected, expected == 0 ? 0.0 : 100.0 * (expected - got) / expected,
+                          registry.size(), options.devices, got / seconds, seconds, server.getBufferPool());
+    }
+
+    /**
+     * An {@link UbntDiscoveryServer} that only binds to the loopback
+     * interface.
+     */
+    private static class LoopbackServer extends UbntDiscoveryServer {
+
+        /**
+         * Binds a single channel to the loopback address.
+         */
+        @Override
+        protected void setup() {
+            bind(null, InetAddress.getLoopbackAddress());
+        }
+    }
+
+    /**
+     * Command line options of the simulator.
+     */
+    public static class Options {
+
+        @Parameter(names = "-address", description = "The address to bind to.")
+        String address = "127.0.0.1";
+
+        @Parameter(names = "-port", description = "The port to receive queries on.")
+        int port = UbntDiscoveryServer.UBNT_PORT;
+
+        @Parameter(names = "-devices", description = "The amount of simulated devices.")
+        int devices = 1000;
+
+        @Parameter(names = "-rate", description = "Responses per second per query, 0 for no limit.")
+        long rate = 0;
+
+        @Parameter(names = "-burst", description = "Responses sent back-to-back before the rate is applied.")
+        int burst = 32;
+
+        @Parameter(names = "-malformed", description = "The ratio of malformed responses.")
+        double malformed = 0.0;
+
+        @Parameter(names = "-duplicates", description = "The ratio of responses sent twice.")
+        double duplicates = 0.0;
+
+        @Parameter(names = "-seed", description = "The seed of the malformed and duplicate selection.")
+        long seed = 42L;
+
+        @Parameter(names = "-serve", description = "Only answers queries until stopped.")
+        boolean serve = false;
+
+        @Parameter(names = "-queries", description = "Soak test: the amount of sent queries.")
+        int queries = 4;
+
+        @Parameter(names = "-interval", description = "Soak test: milliseconds between two queries.")
+        long interval = 1000L;
+
+        @Parameter(names = "-drain", description = "Soak test: milliseconds to wait after the last query.")
+        long drain = 2000L;
+
+        @Parameter(names = "-nio", description = "Soak test: uses the selector based receive engine.")
+        boolean nio = false;
+
+        @Parameter(names = {"-h", "-help"}, help = true, description = "Shows this usage information.")
+        boolean help;
+    }
+}